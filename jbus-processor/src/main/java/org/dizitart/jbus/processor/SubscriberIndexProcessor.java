@@ -0,0 +1,425 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An annotation processor which generates a {@code SubscriberIndex} for the
+ * listener classes of a compilation, so that JBus does not need to scan them
+ * via reflection at registration time.
+ *
+ * One index class is generated per package, named {@code JBusSubscriberIndex}
+ * by default (configurable via the {@code jbus.indexName} option), and all of
+ * them are registered in
+ * {@code META-INF/services/org.dizitart.jbus.SubscriberIndex}.
+ *
+ * Subscriber methods accessible from the generated index are called directly
+ * via generated invokers. Private, static and inaccessible methods are listed
+ * without an invoker and are invoked via a method handle on Java 9+, via
+ * reflection and {@code setAccessible} before. Listener classes which
+ * can not be referred from the generated index, e.g. private classes, are
+ * left to the reflective scan.
+ *
+ * @since 1.2
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(SubscriberIndexProcessor.OPTION_INDEX_NAME)
+public class SubscriberIndexProcessor extends AbstractProcessor {
+    static final String OPTION_INDEX_NAME = "jbus.indexName";
+    static final String DEFAULT_INDEX_NAME = "JBusSubscriberIndex";
+
+    private static final String SUBSCRIBE = "org.dizitart.jbus.Subscribe";
+    private static final String LISTENER = "org.dizitart.jbus.Listener";
+    private static final String SERVICE_FILE = "META-INF/services/org.dizitart.jbus.SubscriberIndex";
+
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        // generated sources do not declare any listener, index only the first round.
+        if (generated || roundEnv.processingOver())
+            return false;
+        generated = true;
+
+        Map<String, List<IndexedListener>> listenersByPackage = new TreeMap<String, List<IndexedListener>>();
+        for (TypeElement type : findTypes(roundEnv.getRootElements())) {
+            IndexedListener listener = indexListener(type);
+            if (listener == null)
+                continue;
+            List<IndexedListener> listeners = listenersByPackage.get(listener.packageName);
+            if (listeners == null) {
+                listeners = new ArrayList<IndexedListener>();
+                listenersByPackage.put(listener.packageName, listeners);
+            }
+            listeners.add(listener);
+        }
+        if (listenersByPackage.isEmpty())
+            return false;
+
+        String indexName = getIndexName();
+        List<String> indexClasses = new ArrayList<String>();
+        for (Map.Entry<String, List<IndexedListener>> entry : listenersByPackage.entrySet()) {
+            String indexClass = entry.getKey().isEmpty() ? indexName : entry.getKey() + "." + indexName;
+            try {
+                writeIndex(entry.getKey(), indexName, indexClass, entry.getValue());
+                indexClasses.add(indexClass);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Unable to write subscriber index " + indexClass + ": " + e.getMessage());
+            }
+        }
+        try {
+            writeServiceFile(indexClasses);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to write " + SERVICE_FILE + ": " + e.getMessage());
+        }
+        return false;
+    }
+
+    private String getIndexName() {
+        String indexName = processingEnv.getOptions().get(OPTION_INDEX_NAME);
+        if (indexName == null || !SourceVersion.isIdentifier(indexName) || SourceVersion.isKeyword(indexName))
+            return DEFAULT_INDEX_NAME;
+        return indexName;
+    }
+
+    private List<TypeElement> findTypes(Iterable<? extends Element> elements) {
+        List<TypeElement> types = new ArrayList<TypeElement>();
+        for (TypeElement type : ElementFilter.typesIn(elements)) {
+            types.add(type);
+            types.addAll(findTypes(type.getEnclosedElements()));
+        }
+        return types;
+    }
+
+    /**
+     * Collects the subscriber methods of a concrete listener class the same way
+     * the reflective scan does.
+     *
+     * @return the listener, or null if the class is not indexable.
+     */
+    private IndexedListener indexListener(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS && type.getKind() != ElementKind.ENUM)
+            return null;
+        if (type.getModifiers().contains(Modifier.ABSTRACT))
+            return null;
+        // Listener implementations are matched against their accept method at runtime.
+        TypeElement listenerType = processingEnv.getElementUtils().getTypeElement(LISTENER);
+        if (listenerType != null && processingEnv.getTypeUtils().isAssignable(
+                processingEnv.getTypeUtils().erasure(type.asType()),
+                processingEnv.getTypeUtils().erasure(listenerType.asType())))
+            return null;
+
+        List<Subscriber> subscribers = new ArrayList<Subscriber>();
+        if (!collectSubscribers(type, new HashSet<String>(), new HashSet<String>(), subscribers)
+                || subscribers.isEmpty())
+            return null;
+
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        if (!isAccessible(type, packageElement))
+            return null;
+        for (Subscriber subscriber : subscribers) {
+            // both are referred as class literals from the generated index
+            if (!isAccessible(subscriber.declaringClass, packageElement)
+                    || !isAccessible(subscriber.eventType, packageElement))
+                return null;
+            subscriber.direct = isDirectlyInvokable(subscriber, packageElement);
+        }
+        return new IndexedListener(packageElement.getQualifiedName().toString(), type, subscribers);
+    }
+
+    /**
+     * Walks the class hierarchy, declared methods first, then the super class
+     * and then the interfaces, skipping overridden methods.
+     *
+     * @return false if the class is not valid for subscription, so that the
+     *         reflective scan reports it at runtime.
+     */
+    private boolean collectSubscribers(TypeElement type, Set<String> classVisitTracker, Set<String> signatureTracker,
+            List<Subscriber> subscribers) {
+        if (type == null || type.getQualifiedName().toString().startsWith("java."))
+            return true;
+        if (!classVisitTracker.add(type.getQualifiedName().toString()))
+            return true;
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            AnnotationMirror subscribe = getSubscribe(method);
+            if (subscribe == null || method.getParameters().size() != 1)
+                continue;
+            // batch subscribers are resolved via reflection, which reads their
+            // event type from the generic List parameter. So are partitioned
+            // subscribers, which the index does not describe.
+            if (getInt(subscribe, "batchSize") > 0 || getInt(subscribe, "partitions") > 0)
+                return false;
+            VariableElement parameter = method.getParameters().get(0);
+            TypeMirror parameterType = processingEnv.getTypeUtils().erasure(parameter.asType());
+            if (parameterType.getKind() != TypeKind.DECLARED || method.isVarArgs())
+                return false;
+            boolean async = getBoolean(subscribe, "async");
+            TypeElement eventType = (TypeElement) processingEnv.getTypeUtils().asElement(parameterType);
+            boolean isPrivate = method.getModifiers().contains(Modifier.PRIVATE);
+            if (!isPrivate && !signatureTracker.add(method.getSimpleName() + "("
+                    + processingEnv.getElementUtils().getBinaryName(eventType) + ")" + async))
+                continue;
+            subscribers.add(new Subscriber(type, method, eventType,
+                    parameter.asType().getKind() == TypeKind.TYPEVAR, async, getBoolean(subscribe, "ordered"),
+                    getInt(subscribe, "priority"), getBoolean(subscribe, "conflate"),
+                    getLong(subscribe, "throttleMillis")));
+        }
+        if (type.getSuperclass().getKind() == TypeKind.DECLARED) {
+            if (!collectSubscribers((TypeElement) processingEnv.getTypeUtils().asElement(type.getSuperclass()),
+                    classVisitTracker, signatureTracker, subscribers))
+                return false;
+        }
+        for (TypeMirror interfaceType : type.getInterfaces()) {
+            if (!collectSubscribers((TypeElement) processingEnv.getTypeUtils().asElement(interfaceType),
+                    classVisitTracker, signatureTracker, subscribers))
+                return false;
+        }
+        return true;
+    }
+
+    private AnnotationMirror getSubscribe(ExecutableElement method) {
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(SUBSCRIBE))
+                return annotation;
+        }
+        return null;
+    }
+
+    private boolean getBoolean(AnnotationMirror subscribe, String name) {
+        return Boolean.TRUE.equals(getValue(subscribe, name));
+    }
+
+    private int getInt(AnnotationMirror subscribe, String name) {
+        Object value = getValue(subscribe, name);
+        return value instanceof Integer ? (Integer) value : 0;
+    }
+
+    private long getLong(AnnotationMirror subscribe, String name) {
+        Object value = getValue(subscribe, name);
+        return value instanceof Long ? (Long) value : 0;
+    }
+
+    private Object getValue(AnnotationMirror subscribe, String name) {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                processingEnv.getElementUtils().getElementValuesWithDefaults(subscribe);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name))
+                return entry.getValue().getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a type can be referred by its canonical name from the given
+     * package.
+     */
+    private boolean isAccessible(TypeElement type, PackageElement packageElement) {
+        Element current = type;
+        while (current instanceof TypeElement) {
+            TypeElement currentType = (TypeElement) current;
+            if (currentType.getNestingKind() == NestingKind.LOCAL
+                    || currentType.getNestingKind() == NestingKind.ANONYMOUS)
+                return false;
+            Set<Modifier> modifiers = currentType.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE))
+                return false;
+            if (!modifiers.contains(Modifier.PUBLIC)
+                    && !processingEnv.getElementUtils().getPackageOf(currentType).equals(packageElement))
+                return false;
+            current = currentType.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private boolean isDirectlyInvokable(Subscriber subscriber, PackageElement packageElement) {
+        Set<Modifier> modifiers = subscriber.method.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC) || subscriber.typeVariable)
+            return false;
+        return modifiers.contains(Modifier.PUBLIC)
+                || processingEnv.getElementUtils().getPackageOf(subscriber.declaringClass).equals(packageElement);
+    }
+
+    private void writeIndex(String packageName, String indexName, String indexClass, List<IndexedListener> listeners)
+            throws IOException {
+        List<Element> originatingElements = new ArrayList<Element>();
+        for (IndexedListener listener : listeners)
+            originatingElements.add(listener.type);
+        JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(indexClass,
+                originatingElements.toArray(new Element[originatingElements.size()]));
+        Writer writer = sourceFile.openWriter();
+        try {
+            PrintWriter out = new PrintWriter(writer);
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("/**");
+            out.println(" * Subscriber index generated by " + SubscriberIndexProcessor.class.getName() + ".");
+            out.println(" */");
+            out.println("@SuppressWarnings({\"rawtypes\", \"unchecked\"})");
+            out.println("public final class " + indexName + " implements org.dizitart.jbus.SubscriberIndex {");
+            out.println("    private static final java.util.Map<String, Integer> LISTENERS"
+                    + " = new java.util.HashMap<String, Integer>();");
+            out.println("    static {");
+            for (int i = 0; i < listeners.size(); i++) {
+                out.println("        LISTENERS.put(\"" + processingEnv.getElementUtils().getBinaryName(listeners.get(i).type)
+                        + "\", " + i + ");");
+            }
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public org.dizitart.jbus.IndexedSubscriber[] getSubscribers(Class<?> listenerClass) {");
+            out.println("        Integer listener = LISTENERS.get(listenerClass.getName());");
+            out.println("        if (listener == null)");
+            out.println("            return null;");
+            out.println("        switch (listener.intValue()) {");
+            for (int i = 0; i < listeners.size(); i++) {
+                IndexedListener listener = listeners.get(i);
+                out.println("            case " + i + ":");
+                out.println("                if (listenerClass != " + listener.type.getQualifiedName() + ".class)");
+                out.println("                    return null;");
+                out.println("                return new org.dizitart.jbus.IndexedSubscriber[] {");
+                for (Subscriber subscriber : listener.subscribers)
+                    writeSubscriber(out, subscriber);
+                out.println("                };");
+            }
+            out.println("            default:");
+            out.println("                return null;");
+            out.println("        }");
+            out.println("    }");
+            out.println("}");
+            out.flush();
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void writeSubscriber(PrintWriter out, Subscriber subscriber) {
+        String declaringClass = subscriber.declaringClass.getQualifiedName().toString();
+        String eventType = subscriber.eventType.getQualifiedName().toString();
+        out.println("                    new org.dizitart.jbus.IndexedSubscriber(" + declaringClass + ".class, \""
+                + subscriber.method.getSimpleName() + "\", " + eventType + ".class, " + subscriber.async + ", "
+                + subscriber.ordered + ", " + subscriber.priority + ", " + subscriber.conflate + ", "
+                + subscriber.throttleMillis + "L,");
+        if (!subscriber.direct) {
+            out.println("                            null),");
+            return;
+        }
+        out.println("                            new org.dizitart.jbus.SubscriberInvoker() {");
+        out.println("                                @Override");
+        out.println("                                public void invoke(Object listener, Object event) throws Throwable {");
+        out.println("                                    ((" + declaringClass + ") listener)."
+                + subscriber.method.getSimpleName() + "((" + eventType + ") event);");
+        out.println("                                }");
+        out.println("                            }),");
+    }
+
+    private void writeServiceFile(List<String> indexClasses) throws IOException {
+        if (indexClasses.isEmpty())
+            return;
+        FileObject serviceFile = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                SERVICE_FILE);
+        Writer writer = serviceFile.openWriter();
+        try {
+            PrintWriter out = new PrintWriter(writer);
+            for (String indexClass : indexClasses)
+                out.println(indexClass);
+            out.flush();
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static class IndexedListener {
+        private final String packageName;
+        private final TypeElement type;
+        private final List<Subscriber> subscribers;
+
+        IndexedListener(String packageName, TypeElement type, List<Subscriber> subscribers) {
+            this.packageName = packageName;
+            this.type = type;
+            this.subscribers = subscribers;
+        }
+    }
+
+    private static class Subscriber {
+        private final TypeElement declaringClass;
+        private final ExecutableElement method;
+        private final TypeElement eventType;
+        private final boolean typeVariable;
+        private final boolean async;
+        private final boolean ordered;
+        private final int priority;
+        private final boolean conflate;
+        private final long throttleMillis;
+        private boolean direct;
+
+        Subscriber(TypeElement declaringClass, ExecutableElement method, TypeElement eventType,
+                boolean typeVariable, boolean async, boolean ordered, int priority, boolean conflate,
+                long throttleMillis) {
+            this.declaringClass = declaringClass;
+            this.method = method;
+            this.eventType = eventType;
+            this.typeVariable = typeVariable;
+            this.async = async;
+            this.ordered = ordered;
+            this.priority = priority;
+            this.conflate = conflate;
+            this.throttleMillis = throttleMillis;
+        }
+    }
+}
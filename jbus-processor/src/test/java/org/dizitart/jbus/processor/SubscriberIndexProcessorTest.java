@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus.processor;
+
+import org.dizitart.jbus.IndexedSubscriber;
+import org.dizitart.jbus.SubscriberIndex;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class SubscriberIndexProcessorTest {
+    private static final String SOURCE = "package sample;\n"
+            + "import org.dizitart.jbus.Subscribe;\n"
+            + "public class Listeners {\n"
+            + "    public static class Event {}\n"
+            + "    public static class UserListener {\n"
+            + "        public String received;\n"
+            + "        @Subscribe public void listen(Event event) { received = \"listen\"; }\n"
+            + "        @Subscribe(async = true, priority = 5) void listenAsync(Event event) {}\n"
+            + "        @Subscribe(async = true, throttleMillis = 100) private void listenPrivate(Event event) {}\n"
+            + "        public void notSubscribed(Event event) {}\n"
+            + "    }\n"
+            + "    public static class ChildListener extends UserListener {\n"
+            + "        @Override @Subscribe public void listen(Event event) { received = \"child\"; }\n"
+            + "    }\n"
+            + "    public static class CheckedListener {\n"
+            + "        @Subscribe public void listen(Event event) throws java.io.IOException {\n"
+            + "            throw new java.io.IOException(\"checked\");\n"
+            + "        }\n"
+            + "    }\n"
+            + "    private static class HiddenListener {\n"
+            + "        @Subscribe public void listen(Event event) {}\n"
+            + "    }\n"
+            + "}\n";
+
+    private File outputDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        outputDirectory = File.createTempFile("jbus-processor", "");
+        assertTrue(outputDirectory.delete());
+        assertTrue(outputDirectory.mkdirs());
+    }
+
+    @Test
+    public void testGeneratedIndex() throws Throwable {
+        SubscriberIndex index = compile();
+
+        Class<?> userListener = loadClass("sample.Listeners$UserListener");
+        IndexedSubscriber[] subscribers = index.getSubscribers(userListener);
+        assertEquals(subscribers.length, 3);
+        assertEquals(subscribers[0].getMethodName(), "listen");
+        assertNotNull(subscribers[0].getInvoker());
+        assertEquals(subscribers[1].getMethodName(), "listenAsync");
+        assertTrue(subscribers[1].isAsync());
+        assertEquals(subscribers[1].getPriority(), 5);
+        assertNotNull(subscribers[1].getInvoker());
+        assertEquals(subscribers[2].getMethodName(), "listenPrivate");
+        assertEquals(subscribers[2].getThrottleMillis(), 100);
+        assertNull(subscribers[2].getInvoker());
+
+        Object listener = userListener.newInstance();
+        Object event = loadClass("sample.Listeners$Event").newInstance();
+        subscribers[0].getInvoker().invoke(listener, event);
+        assertEquals(userListener.getField("received").get(listener), "listen");
+    }
+
+    @Test
+    public void testOverriddenMethodIsIndexedOnce() throws Throwable {
+        SubscriberIndex index = compile();
+
+        Class<?> childListener = loadClass("sample.Listeners$ChildListener");
+        IndexedSubscriber[] subscribers = index.getSubscribers(childListener);
+        assertEquals(subscribers.length, 3);
+        assertEquals(subscribers[0].getDeclaringClass(), childListener);
+
+        Object listener = childListener.newInstance();
+        subscribers[0].getInvoker().invoke(listener, loadClass("sample.Listeners$Event").newInstance());
+        assertEquals(childListener.getField("received").get(listener), "child");
+    }
+
+    @Test
+    public void testSubscriberThrowingCheckedException() throws Throwable {
+        SubscriberIndex index = compile();
+
+        Class<?> checkedListener = loadClass("sample.Listeners$CheckedListener");
+        IndexedSubscriber[] subscribers = index.getSubscribers(checkedListener);
+        assertEquals(subscribers.length, 1);
+        assertNotNull(subscribers[0].getInvoker());
+        try {
+            subscribers[0].getInvoker().invoke(checkedListener.newInstance(),
+                    loadClass("sample.Listeners$Event").newInstance());
+            fail();
+        } catch (IOException e) {
+            assertEquals(e.getMessage(), "checked");
+        }
+    }
+
+    @Test
+    public void testInaccessibleListenerIsNotIndexed() throws Exception {
+        SubscriberIndex index = compile();
+
+        assertNull(index.getSubscribers(loadClass("sample.Listeners$HiddenListener")));
+        assertNull(index.getSubscribers(loadClass("sample.Listeners")));
+    }
+
+    private ClassLoader classLoader;
+
+    private Class<?> loadClass(String name) throws ClassNotFoundException {
+        return Class.forName(name, true, classLoader);
+    }
+
+    private SubscriberIndex compile() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assumeTrue(compiler != null);
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        try {
+            List<String> options = new ArrayList<String>(Arrays.asList("-d", outputDirectory.getPath(),
+                    "-s", outputDirectory.getPath(), "-classpath", System.getProperty("java.class.path")));
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null,
+                    Collections.singletonList(new SourceFile("sample/Listeners.java", SOURCE)));
+            task.setProcessors(Collections.singletonList(new SubscriberIndexProcessor()));
+            assertTrue(task.call());
+        } finally {
+            fileManager.close();
+        }
+
+        assertTrue(new File(outputDirectory, "META-INF/services/org.dizitart.jbus.SubscriberIndex").exists());
+        classLoader = new URLClassLoader(new URL[] { outputDirectory.toURI().toURL() },
+                getClass().getClassLoader());
+        return (SubscriberIndex) loadClass("sample." + SubscriberIndexProcessor.DEFAULT_INDEX_NAME).newInstance();
+    }
+
+    private static class SourceFile extends SimpleJavaFileObject {
+        private final String source;
+
+        SourceFile(String path, String source) {
+            super(URI.create("string:///" + path), JavaFileObject.Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+}
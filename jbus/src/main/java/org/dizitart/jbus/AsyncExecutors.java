@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Factory methods of executor services for asynchronous subscribers, to be
+ * passed to {@link JBus#JBus(Class, ExecutorService)}.
+ *
+ * @since 1.2
+ */
+public final class AsyncExecutors {
+	private static final Class<?> THIS_CLASS = new Object() {
+	}.getClass().getEnclosingClass();
+	private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(THIS_CLASS);
+
+	private AsyncExecutors() {
+	}
+
+	/**
+	 * Checks if the runtime supports virtual threads, i.e. runs on Java 21+.
+	 *
+	 * @return true if virtual threads are supported.
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return VirtualThreads.isSupported();
+	}
+
+	/**
+	 * Creates an executor service which runs every async delivery on a new
+	 * virtual thread, so that subscribers blocking on I/O do not hold platform
+	 * threads. If virtual threads are not supported, a cached thread pool is
+	 * created instead.
+	 *
+	 * @return the executor service.
+	 */
+	public static ExecutorService newVirtualThreadExecutor() {
+		ExecutorService executorService = VirtualThreads.newThreadPerTaskExecutor();
+		if (executorService == null) {
+			logger.warn("Virtual threads are not supported, using a cached thread pool instead.");
+			return Executors.newCachedThreadPool();
+		}
+		return executorService;
+	}
+
+	/**
+	 * Creates an executor service which runs every async delivery on a new
+	 * virtual thread, with at most {@code maxConcurrency} deliveries running at
+	 * a time. Further deliveries are queued, without blocking the posting
+	 * thread. If virtual threads are not supported, a thread pool of
+	 * {@code maxConcurrency} threads is created instead.
+	 *
+	 * @param maxConcurrency the maximum number of concurrent deliveries.
+	 * @return the executor service.
+	 *
+	 * @exception IllegalArgumentException if the number is not positive.
+	 */
+	public static ExecutorService newVirtualThreadExecutor(int maxConcurrency) {
+		if (maxConcurrency <= 0)
+			throw new IllegalArgumentException("Maximum concurrency must be positive.");
+		ExecutorService executorService = VirtualThreads.newThreadPerTaskExecutor();
+		if (executorService == null) {
+			logger.warn("Virtual threads are not supported, using a fixed thread pool instead.");
+			return Executors.newFixedThreadPool(maxConcurrency);
+		}
+		return new ConcurrencyLimitedExecutor(executorService, maxConcurrency);
+	}
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control of the async deliveries of an event bus. Every post with
+ * async subscribers is admitted once, holding a {@link Ticket} until all of its
+ * async deliveries have completed. Posts exceeding the configured number of
+ * pending events or their total weight are handled according to the
+ * {@link OverflowPolicy}.
+ *
+ * @since 1.2
+ */
+class AsyncQueue {
+	private static final int QUEUED = 0;
+	private static final int STARTED = 1;
+	private static final int DROPPED = 2;
+	private static final int DONE = 3;
+
+	// modes of a ticket
+	private static final int DELIVER = 0;
+	private static final int MODE_DROP = 1;
+	private static final int MODE_CALLER_RUNS = 2;
+
+	/**
+	 * Returned from {@link #admit(Object, PostCompletion)} when the async
+	 * deliveries of an untracked event have to be dropped.
+	 */
+	static final Ticket DROP = new Ticket(null, null, 0, null, MODE_DROP);
+	/**
+	 * Returned from {@link #admit(Object, PostCompletion)} when the unordered
+	 * async deliveries of an untracked event have to run in the posting thread.
+	 */
+	static final Ticket CALLER_RUNS = new Ticket(null, null, 0, null, MODE_CALLER_RUNS);
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition released = lock.newCondition();
+	// admitted tickets none of whose deliveries has started yet, oldest first
+	private final Set<Ticket> droppable = new LinkedHashSet<Ticket>();
+	private int maxEvents = Integer.MAX_VALUE;
+	private long maxWeight = Long.MAX_VALUE;
+	private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+	private volatile EventWeigher<Object> weigher;
+	private int pendingEvents;
+	private long pendingWeight;
+
+	private final AtomicLong droppedEvents = new AtomicLong();
+	private final AtomicLong rejectedEvents = new AtomicLong();
+	private final AtomicLong callerRunsEvents = new AtomicLong();
+	private final AtomicLong blockedNanos = new AtomicLong();
+
+	void setLimit(int maxEvents, OverflowPolicy overflowPolicy) {
+		if (maxEvents <= 0)
+			throw new IllegalArgumentException("Async queue limit must be positive.");
+		Utils.requireNonNull(overflowPolicy);
+		lock.lock();
+		try {
+			this.maxEvents = maxEvents;
+			this.overflowPolicy = overflowPolicy;
+			released.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	void setBudget(long maxWeight, EventWeigher<?> weigher) {
+		if (maxWeight <= 0)
+			throw new IllegalArgumentException("Async queue budget must be positive.");
+		Utils.requireNonNull(weigher);
+		lock.lock();
+		try {
+			this.maxWeight = maxWeight;
+			this.weigher = (EventWeigher<Object>) weigher;
+			released.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Admits the async deliveries of an event.
+	 *
+	 * @param completion the completion of the post, null if it is not tracked.
+	 * @return the ticket of the event, which is {@link #DROP} or
+	 *         {@link #CALLER_RUNS} for an untracked event which is not admitted.
+	 * @exception JBusException if the queue is full and the policy is
+	 *                          {@link OverflowPolicy#FAIL}.
+	 */
+	Ticket admit(Object event, PostCompletion completion) {
+		EventWeigher<Object> weigher = this.weigher;
+		long weight = 0;
+		if (weigher != null) {
+			weight = weigher.weigh(event);
+			if (weight < 0)
+				throw new JBusException("Negative weight " + weight + " for event " + event);
+		}
+
+		long blockedSince = 0;
+		lock.lock();
+		try {
+			// an event heavier than the whole budget is admitted into an empty queue,
+			// otherwise it could never be delivered.
+			while (pendingEvents >= maxEvents || (pendingEvents > 0 && pendingWeight + weight > maxWeight)) {
+				switch (overflowPolicy) {
+				case BLOCK:
+					if (blockedSince == 0)
+						blockedSince = System.nanoTime();
+					try {
+						released.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						droppedEvents.incrementAndGet();
+						return drop(event, completion);
+					}
+					break;
+				case CALLER_RUNS:
+					callerRunsEvents.incrementAndGet();
+					return completion == null ? CALLER_RUNS : new Ticket(null, event, 0, completion, MODE_CALLER_RUNS);
+				case DROP_OLDEST:
+					if (dropOldest())
+						break;
+					droppedEvents.incrementAndGet();
+					return drop(event, completion);
+				case DROP_NEWEST:
+					droppedEvents.incrementAndGet();
+					return drop(event, completion);
+				default:
+					rejectedEvents.incrementAndGet();
+					throw new JBusException("Async queue is full, could not post event:" + event);
+				}
+			}
+			Ticket ticket = new Ticket(this, event, weight, completion, DELIVER);
+			pendingEvents++;
+			pendingWeight += weight;
+			droppable.add(ticket);
+			return ticket;
+		} finally {
+			lock.unlock();
+			if (blockedSince != 0)
+				blockedNanos.addAndGet(System.nanoTime() - blockedSince);
+		}
+	}
+
+	private static Ticket drop(Object event, PostCompletion completion) {
+		if (completion == null)
+			return DROP;
+		completion.markDropped();
+		return new Ticket(null, event, 0, completion, MODE_DROP);
+	}
+
+	/**
+	 * Creates the ticket of a tracked event, which is not held by a bounded
+	 * queue.
+	 */
+	static Ticket track(Object event, PostCompletion completion) {
+		return new Ticket(null, event, 0, Utils.requireNonNull(completion), DELIVER);
+	}
+
+	// drops the oldest ticket none of whose deliveries has started, with the lock held
+	private boolean dropOldest() {
+		Iterator<Ticket> iterator = droppable.iterator();
+		while (iterator.hasNext()) {
+			Ticket ticket = iterator.next();
+			iterator.remove();
+			if (ticket.state.compareAndSet(QUEUED, DROPPED)) {
+				// the deliveries still queued in the executor only hold the ticket, the
+				// event is released along with its weight
+				ticket.event = null;
+				if (ticket.completion != null)
+					ticket.completion.markDropped();
+				droppedEvents.incrementAndGet();
+				pendingEvents--;
+				pendingWeight -= ticket.weight;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void release(Ticket ticket) {
+		lock.lock();
+		try {
+			droppable.remove(ticket);
+			pendingEvents--;
+			pendingWeight -= ticket.weight;
+			released.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void started(Ticket ticket) {
+		lock.lock();
+		try {
+			droppable.remove(ticket);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	AsyncQueueStatistics getStatistics() {
+		int events;
+		long weight;
+		lock.lock();
+		try {
+			events = pendingEvents;
+			weight = pendingWeight;
+		} finally {
+			lock.unlock();
+		}
+		return new AsyncQueueStatistics(events, weight, droppedEvents.get(), rejectedEvents.get(),
+				callerRunsEvents.get(), blockedNanos.get());
+	}
+
+	/**
+	 * The admission of a posted event into a bounded queue, or the tracking of a
+	 * post for its {@link PostCompletion}, or both. It is split into one part per
+	 * executor task or mailbox entry delivering the event, plus one held by the
+	 * posting thread until all of them are queued. The event leaves the queue and
+	 * the post completes once all parts are completed. A dropped event leaves the
+	 * queue right away.
+	 */
+	static final class Ticket {
+		// null if the event is not held by a bounded queue
+		private final AsyncQueue queue;
+		// cleared once the event is dropped, it is only read by a started delivery
+		Object event;
+		private final long weight;
+		// null if the post is not tracked
+		private final PostCompletion completion;
+		private final int mode;
+		private final AtomicInteger parts = new AtomicInteger(1);
+		private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+		private Ticket(AsyncQueue queue, Object event, long weight, PostCompletion completion, int mode) {
+			this.queue = queue;
+			this.event = event;
+			this.weight = weight;
+			this.completion = completion;
+			this.mode = mode;
+		}
+
+		/**
+		 * Checks if the async deliveries of the event have to be dropped.
+		 */
+		boolean drops() {
+			return mode == MODE_DROP;
+		}
+
+		/**
+		 * Checks if the unordered async deliveries of the event have to run in the
+		 * posting thread.
+		 */
+		boolean callerRuns() {
+			return mode == MODE_CALLER_RUNS;
+		}
+
+		/**
+		 * Checks if the deliveries of the event have to carry the ticket, so that
+		 * they complete its parts.
+		 */
+		boolean isTracked() {
+			return queue != null || completion != null;
+		}
+
+		/**
+		 * Completes a part of the ticket whose delivery is skipped.
+		 */
+		void skip() {
+			if (completion != null)
+				completion.markDropped();
+			complete();
+		}
+
+		/**
+		 * Records the failure of a subscriber.
+		 */
+		void fail(Throwable error) {
+			if (completion != null)
+				completion.addError(error);
+		}
+
+		/**
+		 * Adds a part, before a delivery of the event is queued.
+		 */
+		void fork() {
+			parts.incrementAndGet();
+		}
+
+		/**
+		 * Marks the start of a delivery.
+		 *
+		 * @return false if the event has been dropped, and must not be delivered.
+		 */
+		boolean start() {
+			int current = state.get();
+			if (current == QUEUED) {
+				if (state.compareAndSet(QUEUED, STARTED)) {
+					if (queue != null)
+						queue.started(this);
+					return true;
+				}
+				current = state.get();
+			}
+			return current != DROPPED;
+		}
+
+		/**
+		 * Completes a part, whether it has been delivered or not.
+		 */
+		void complete() {
+			if (!isTracked() || parts.decrementAndGet() > 0)
+				return;
+			int current;
+			do {
+				current = state.get();
+			} while (current != DROPPED && !state.compareAndSet(current, DONE));
+			// a dropped event has left the queue already
+			if (queue != null && current != DROPPED)
+				queue.release(this);
+			if (completion != null)
+				completion.complete();
+		}
+	}
+}
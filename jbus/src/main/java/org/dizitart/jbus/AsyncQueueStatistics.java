@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+/**
+ * A snapshot of the state and counters of the async queue of a {@link JBus}.
+ *
+ * @since 1.2
+ * @see JBus#getAsyncQueueStatistics()
+ */
+public final class AsyncQueueStatistics {
+    private final int pendingEvents;
+    private final long pendingWeight;
+    private final long droppedEvents;
+    private final long rejectedEvents;
+    private final long callerRunsEvents;
+    private final long blockedNanos;
+
+    AsyncQueueStatistics(int pendingEvents, long pendingWeight, long droppedEvents, long rejectedEvents,
+                         long callerRunsEvents, long blockedNanos) {
+        this.pendingEvents = pendingEvents;
+        this.pendingWeight = pendingWeight;
+        this.droppedEvents = droppedEvents;
+        this.rejectedEvents = rejectedEvents;
+        this.callerRunsEvents = callerRunsEvents;
+        this.blockedNanos = blockedNanos;
+    }
+
+    /**
+     * Gets the number of events whose async deliveries are queued or running.
+     */
+    public int getPendingEvents() {
+        return pendingEvents;
+    }
+
+    /**
+     * Gets the total weight of the pending events.
+     */
+    public long getPendingWeight() {
+        return pendingWeight;
+    }
+
+    /**
+     * Gets the number of events whose async deliveries have been dropped.
+     */
+    public long getDroppedEvents() {
+        return droppedEvents;
+    }
+
+    /**
+     * Gets the number of posts which failed due to {@link OverflowPolicy#FAIL}.
+     */
+    public long getRejectedEvents() {
+        return rejectedEvents;
+    }
+
+    /**
+     * Gets the number of events delivered in the posting thread due to
+     * {@link OverflowPolicy#CALLER_RUNS}.
+     */
+    public long getCallerRunsEvents() {
+        return callerRunsEvents;
+    }
+
+    /**
+     * Gets the total time posting threads have been blocked due to
+     * {@link OverflowPolicy#BLOCK}, in nanoseconds.
+     */
+    public long getBlockedNanos() {
+        return blockedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncQueueStatistics{pendingEvents=" + pendingEvents + ", pendingWeight=" + pendingWeight
+                + ", droppedEvents=" + droppedEvents + ", rejectedEvents=" + rejectedEvents
+                + ", callerRunsEvents=" + callerRunsEvents + ", blockedNanos=" + blockedNanos + "}";
+    }
+}
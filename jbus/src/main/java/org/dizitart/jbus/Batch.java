@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Accumulates the events of a batch subscriber, until the batch is full or its
+ * first event has lingered long enough. Completed batches are delivered via the
+ * mailbox of the subscriber, one at a time.
+ *
+ * @since 1.2
+ */
+class Batch {
+	final int maxSize;
+	final long lingerNanos;
+	private List<Object> events;
+	private long startNanos;
+	private boolean timerScheduled;
+	private boolean closed;
+
+	Batch(int maxSize, long lingerNanos) {
+		this.maxSize = maxSize;
+		this.lingerNanos = lingerNanos;
+	}
+
+	/**
+	 * Adds an event to the current batch.
+	 *
+	 * @return the batch if it is full, null otherwise.
+	 */
+	synchronized List<Object> add(Object event) {
+		if (events == null) {
+			events = new ArrayList<Object>(Math.min(maxSize, 64));
+			startNanos = System.nanoTime();
+		}
+		events.add(event);
+		return events.size() >= maxSize ? take() : null;
+	}
+
+	/**
+	 * Takes the current batch, regardless of its size.
+	 *
+	 * @return the batch, null if it is empty.
+	 */
+	synchronized List<Object> take() {
+		List<Object> batch = events;
+		events = null;
+		return batch;
+	}
+
+	/**
+	 * Closes the batch once its subscriber has been cancelled, it accepts no more
+	 * events afterwards.
+	 *
+	 * @return the pending events, null if there is none.
+	 */
+	synchronized List<Object> close() {
+		closed = true;
+		return take();
+	}
+
+	synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Checks if a linger timer has to be scheduled for the current batch, and
+	 * marks it as scheduled.
+	 */
+	synchronized boolean scheduleTimer() {
+		if (lingerNanos <= 0 || timerScheduled || events == null)
+			return false;
+		timerScheduled = true;
+		return true;
+	}
+
+	/**
+	 * Called by the linger timer.
+	 *
+	 * @return the batch if its first event has lingered long enough, null
+	 *         otherwise.
+	 */
+	synchronized List<Object> expire() {
+		timerScheduled = false;
+		if (events != null && System.nanoTime() - startNanos >= lingerNanos)
+			return take();
+		return null;
+	}
+
+	/**
+	 * Gets the time left until the current batch expires.
+	 */
+	synchronized long remainingNanos() {
+		return Math.max(0, startNanos + lingerNanos - System.nanoTime());
+	}
+}
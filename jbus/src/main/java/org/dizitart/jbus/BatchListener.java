@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.util.List;
+
+/**
+ * A listener receiving events in batches, the counterpart of {@link Listener}
+ * for batch subscribers.
+ *
+ * @param <X> the type of the events.
+ * @since 1.2
+ * @see JBus#registerBatch(BatchListener, Class, int, long)
+ * @see Subscribe#batchSize()
+ */
+public interface BatchListener<X> {
+    /**
+     * Receives a batch of events, in their posting order.
+     *
+     * @param events the events of the batch, never empty.
+     * */
+    void accept(List<X> events);
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.dizitart.jbus;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the metadata of listener classes, like their resolved subscriber
+ * methods.
+ *
+ * The metadata references its class via its methods, so a static cache holding
+ * it strongly would pin the class loader of every listener class. The metadata
+ * is held weakly here and kept alive by the subscriber methods created from it.
+ * The Java 9+ version stores it on the class itself via a {@code ClassValue}.
+ *
+ * @since 1.2
+ */
+class ClassMetadata {
+	private static final Map<Class<?>, WeakReference<Map<Object, Object>>> CACHE = new WeakHashMap<Class<?>, WeakReference<Map<Object, Object>>>();
+
+	private ClassMetadata() {
+	}
+
+	/**
+	 * Gets the metadata of a class, an empty map if it has not been resolved yet
+	 * or has been collected meanwhile.
+	 */
+	static Map<Object, Object> get(Class<?> type) {
+		synchronized (CACHE) {
+			WeakReference<Map<Object, Object>> reference = CACHE.get(type);
+			Map<Object, Object> metadata = reference != null ? reference.get() : null;
+			if (metadata == null) {
+				metadata = new ConcurrentHashMap<Object, Object>();
+				CACHE.put(type, new WeakReference<Map<Object, Object>>(metadata));
+			}
+			return metadata;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+/**
+ * The outcome of {@link JBus#close(long, java.util.concurrent.TimeUnit)}.
+ *
+ * @since 1.2
+ */
+public final class CloseReport {
+    private final boolean drained;
+    private final long abandonedDeliveries;
+    private final long rejectedPosts;
+    private final long droppedEvents;
+
+    CloseReport(boolean drained, long abandonedDeliveries, long rejectedPosts, long droppedEvents) {
+        this.drained = drained;
+        this.abandonedDeliveries = abandonedDeliveries;
+        this.rejectedPosts = rejectedPosts;
+        this.droppedEvents = droppedEvents;
+    }
+
+    /**
+     * Checks if every pending delivery has finished before the deadline.
+     */
+    public boolean isDrained() {
+        return drained;
+    }
+
+    /**
+     * Gets the number of posts and async deliveries which were still pending at
+     * the deadline. Their executor threads have been interrupted, and the
+     * deliveries which have not started yet are lost.
+     */
+    public long getAbandonedDeliveries() {
+        return abandonedDeliveries;
+    }
+
+    /**
+     * Gets the number of posts which have not been dispatched, as they were made
+     * once the bus was closing.
+     */
+    public long getRejectedPosts() {
+        return rejectedPosts;
+    }
+
+    /**
+     * Gets the number of events whose async deliveries have been dropped by the
+     * bounded async queue during the lifetime of the bus.
+     *
+     * @see AsyncQueueStatistics#getDroppedEvents()
+     */
+    public long getDroppedEvents() {
+        return droppedEvents;
+    }
+
+    @Override
+    public String toString() {
+        return "CloseReport{drained=" + drained + ", abandonedDeliveries=" + abandonedDeliveries
+                + ", rejectedPosts=" + rejectedPosts + ", droppedEvents=" + droppedEvents + "}";
+    }
+}
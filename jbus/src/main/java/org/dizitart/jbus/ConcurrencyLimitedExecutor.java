@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An executor service which hands at most a fixed number of tasks at a time
+ * to a delegate executor service, queueing the rest. It caps an executor which
+ * starts a thread per task, without blocking the submitting thread.
+ *
+ * @since 1.2
+ */
+class ConcurrencyLimitedExecutor extends AbstractExecutorService {
+	private final ExecutorService delegate;
+	private final int maxConcurrency;
+	private final Queue<Runnable> queue = new ConcurrentLinkedQueue<Runnable>();
+	private final AtomicInteger running = new AtomicInteger();
+	// counted down once shut down and every queued task has completed
+	private final CountDownLatch drained = new CountDownLatch(1);
+	private volatile boolean shutdown;
+
+	ConcurrencyLimitedExecutor(ExecutorService delegate, int maxConcurrency) {
+		if (maxConcurrency <= 0)
+			throw new IllegalArgumentException("Maximum concurrency must be positive.");
+		this.delegate = Utils.requireNonNull(delegate);
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		Utils.requireNonNull(command);
+		if (shutdown)
+			throw new RejectedExecutionException("Executor has been shutdown.");
+		queue.offer(command);
+		// a concurrent shutdown may have found the queue empty and shut the
+		// delegate down before the offer
+		if (shutdown && queue.remove(command))
+			throw new RejectedExecutionException("Executor has been shutdown.");
+		drain(command);
+	}
+
+	/**
+	 * Hands queued tasks to the delegate while below the concurrency limit. If
+	 * the delegate rejects the submitted task, it is rethrown to the caller. Any
+	 * other task has already been accepted, so it runs in the current thread
+	 * instead of being lost.
+	 */
+	private void drain(Runnable submitted) {
+		while (!queue.isEmpty()) {
+			int current = running.get();
+			if (current >= maxConcurrency)
+				return;
+			if (!running.compareAndSet(current, current + 1))
+				continue;
+			final Runnable task = queue.poll();
+			if (task == null) {
+				release();
+				continue;
+			}
+			try {
+				delegate.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							task.run();
+						} finally {
+							release();
+							drain(null);
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				if (task == submitted) {
+					release();
+					terminateIfDrained();
+					throw e;
+				}
+				try {
+					task.run();
+				} finally {
+					release();
+				}
+			}
+		}
+		terminateIfDrained();
+	}
+
+	private void release() {
+		running.decrementAndGet();
+	}
+
+	private void terminateIfDrained() {
+		if (shutdown && queue.isEmpty() && running.get() == 0 && drained.getCount() > 0) {
+			drained.countDown();
+			delegate.shutdown();
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		shutdown = true;
+		terminateIfDrained();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		shutdown = true;
+		List<Runnable> pending = new ArrayList<Runnable>();
+		for (Runnable task = queue.poll(); task != null; task = queue.poll())
+			pending.add(task);
+		drained.countDown();
+		delegate.shutdownNow();
+		return pending;
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return drained.getCount() == 0 && delegate.isTerminated();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		if (!drained.await(timeout, unit))
+			return false;
+		return delegate.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+}
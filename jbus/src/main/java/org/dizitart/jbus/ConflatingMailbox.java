@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A mailbox of a conflating async subscriber. A queued event replaces the
+ * pending event of the same key in place, so the subscriber only receives the
+ * latest event of each key. If a throttle window is set, a drain delivers the
+ * events pending at its start, and the next drain waits until the window has
+ * passed.
+ *
+ * @since 1.2
+ */
+class ConflatingMailbox extends Mailbox {
+	// stands for the null key, so that a replaced null key can be told apart
+	private static final Object NULL_KEY = new Object();
+
+	private final Map<Object, Object> pending = new LinkedHashMap<Object, Object>();
+	private final long throttleNanos;
+	// only accessed by the single drain of the mailbox
+	private long nextDrain = System.nanoTime();
+
+	ConflatingMailbox(long throttleNanos) {
+		this.throttleNanos = throttleNanos;
+	}
+
+	/**
+	 * Queues an event under its key, replacing the pending event of the key
+	 * without changing its position.
+	 *
+	 * @return the replaced event, null if there was none.
+	 */
+	synchronized Object put(Object key, Object event) {
+		return pending.put(key == null ? NULL_KEY : key, event);
+	}
+
+	@Override
+	boolean offer(Object event) {
+		put(null, event);
+		return schedule();
+	}
+
+	@Override
+	synchronized Object poll() {
+		Iterator<Object> iterator = pending.values().iterator();
+		if (!iterator.hasNext())
+			return null;
+		Object event = iterator.next();
+		iterator.remove();
+		return event;
+	}
+
+	@Override
+	synchronized boolean isEmpty() {
+		return pending.isEmpty();
+	}
+
+	@Override
+	int startDrain(int maxDrain) {
+		if (throttleNanos <= 0)
+			return maxDrain;
+		nextDrain = System.nanoTime() + throttleNanos;
+		synchronized (this) {
+			return pending.size();
+		}
+	}
+
+	@Override
+	long delayNanos() {
+		return throttleNanos <= 0 ? 0 : nextDrain - System.nanoTime();
+	}
+}
@@ -0,0 +1,67 @@
+package org.dizitart.jbus;
+
+public enum CurrentJBus {
+	INSTANCE;
+
+	// the context lives as long as its thread, and only references a bus and a
+	// listener while one of its subscriber methods is being invoked.
+	private final ThreadLocal<Context> CONTEXT = new ThreadLocal<Context>() {
+		@Override
+		protected Context initialValue() {
+			return new Context();
+		}
+	};
+
+	/**
+	 * Invocation context of a thread. It is created once per thread and reused for
+	 * every subscriber invocation, so that dispatching does not allocate. Nested
+	 * posts from a subscriber method push a new frame on top of the current one.
+	 */
+	static final class Context {
+		private JBus<?>[] jBuses = new JBus<?>[4];
+		private Object[] listeners = new Object[4];
+		private int depth;
+		// reusable argument array for the reflective subscriber invocation
+		final Object[] arguments = new Object[1];
+
+		void push(JBus<?> jBus, Object listener) {
+			if (depth == jBuses.length) {
+				JBus<?>[] newJBuses = new JBus<?>[depth * 2];
+				Object[] newListeners = new Object[depth * 2];
+				System.arraycopy(jBuses, 0, newJBuses, 0, depth);
+				System.arraycopy(listeners, 0, newListeners, 0, depth);
+				jBuses = newJBuses;
+				listeners = newListeners;
+			}
+			jBuses[depth] = jBus;
+			listeners[depth] = listener;
+			depth++;
+		}
+
+		void pop() {
+			depth--;
+			jBuses[depth] = null;
+			listeners[depth] = null;
+		}
+
+		/**
+		 * Gets the bus of the innermost subscriber invocation, null if the thread is
+		 * not invoking any subscriber method.
+		 */
+		JBus<?> jBus() {
+			return depth > 0 ? jBuses[depth - 1] : null;
+		}
+
+		/**
+		 * Gets the listener of the innermost subscriber invocation.
+		 */
+		Object listener() {
+			return depth > 0 ? listeners[depth - 1] : null;
+		}
+	}
+
+	Context context() {
+		return CONTEXT.get();
+	}
+
+}
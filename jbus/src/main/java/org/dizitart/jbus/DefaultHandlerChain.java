@@ -17,23 +17,16 @@
 
 package org.dizitart.jbus;
 
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
-
 /**
- * An implementation of {@link HandlerChain}. It extends from {@link CopyOnWriteArrayList} to hold
- * the subscriber records.
+ * An implementation of {@link HandlerChain}. It holds the interruption signal
+ * of a single post of a {@link HandlerChainAware} event.
  *
  * @since 1.0
  * @author Anindya Chatterjee.
  */
-class DefaultHandlerChain extends CopyOnWriteArrayList<ListenerMethod> implements HandlerChain {
+class DefaultHandlerChain implements HandlerChain {
     volatile boolean interrupt;
 
-    DefaultHandlerChain(List<ListenerMethod> subscribers) {
-        super(subscribers);
-    }
-
     @Override
     public void interrupt() {
         interrupt = true;
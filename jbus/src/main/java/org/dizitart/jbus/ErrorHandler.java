@@ -19,8 +19,6 @@ package org.dizitart.jbus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
-
 /**
  * @author Anindya Chatterjee.
  */
@@ -38,17 +36,16 @@ class ErrorHandler {
 		// create exception context
 		ExceptionContext exceptionContext = new ExceptionContext(
 				listenerMethod.holdWeakReference ? listenerMethod.weakListener.get() : listenerMethod.target, event,
-				listenerMethod.method);
+				listenerMethod.getMethod());
 		// create exception event
 		ExceptionEvent exceptionEvent = new ExceptionEvent(error, exceptionContext);
 
 		// first check if any custom error handler is registered. If found,
 		// handle it gracefully, otherwise log it and move on.
-		List<ListenerMethod> errorSubscribers = listenersRegistry.getSubscribers(exceptionEvent);
-		if (errorSubscribers != null && !errorSubscribers.isEmpty()) {
-			logger.trace("Total error handler found for error {} is = {}", error, errorSubscribers.size());
-			DefaultHandlerChain errorHandlerChain = new DefaultHandlerChain(errorSubscribers);
-			eventDispatcher.dispatch(exceptionEvent, errorHandlerChain);
+		ListenerMethod[] errorSubscribers = listenersRegistry.getSubscribers(exceptionEvent);
+		if (errorSubscribers.length > 0) {
+			logger.trace("Total error handler found for error {} is = {}", error, errorSubscribers.length);
+			eventDispatcher.dispatch(exceptionEvent, errorSubscribers);
 		} else {
 			logger.error("Unhandled error", error);
 		}
@@ -0,0 +1,762 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Internal class for dispatching event to its registered subscribers. It
+ * registers itself to a JVM shutdown hook to shutdown gracefully.
+ *
+ * @since 1.0
+ * @author Anindya Chatterjee.
+ */
+public class EventDispatcher<T> {
+	private static final Class<?> THIS_CLASS = new Object() {
+	}.getClass().getEnclosingClass();
+	private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(THIS_CLASS);
+	static final int DEFAULT_ASYNC_CHUNK_SIZE = 16;
+	// maximum number of events a mailbox drain delivers before it yields its
+	// executor thread to other tasks.
+	private static final int MAX_MAILBOX_DRAIN = 64;
+	private final ExecutorService executorService;
+	private JBus<T> jbus;
+	private ListenersRegistry<T> listenersRegistry;
+	// how long the shutdown hook waits for the pending deliveries
+	static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+	private volatile boolean isShutdownInitiated = false;
+	private final InFlight inFlight = new InFlight();
+	private final AtomicLong rejectedPosts = new AtomicLong();
+	private ErrorHandler errorHandler;
+	private volatile int asyncChunkSize = DEFAULT_ASYNC_CHUNK_SIZE;
+	// null until a limit or a budget of the async queue is set
+	private volatile AsyncQueue asyncQueue;
+	private final KeyExtractors keyExtractors;
+
+	public EventDispatcher(JBus<T> jbus, ListenersRegistry<T> listenersRegistry, ExecutorService asyncExecutorService) {
+		this.jbus = Utils.requireNonNull(jbus);
+		this.listenersRegistry = listenersRegistry;
+		listenersRegistry.setEventDispatcher(this);
+		this.keyExtractors = listenersRegistry.keyExtractors;
+		this.executorService = Utils.requireNonNull(asyncExecutorService);
+		errorHandler = new ErrorHandler(listenersRegistry, this);
+	}
+
+	/**
+	 * Dispatches the event to a handler chain.
+	 *
+	 * If the submitted event is of type {@link HandlerChainAware}, before each
+	 * invocation, it will check if an interruption is signalled from the the client
+	 * code. If signalled then no more invocation will happen for that event.
+	 *
+	 * A handler chain is only created for {@link HandlerChainAware} events, for
+	 * any other event dispatching to synchronous subscribers does not allocate.
+	 *
+	 * If the async queue is bounded, a post with async subscribers is admitted
+	 * before any subscriber is invoked. Exception events are never held back, as
+	 * they are mostly dispatched from the executor threads.
+	 */
+	void dispatch(Object event, ListenerMethod[] subscribers) {
+		dispatch(event, subscribers, (PostCompletion) null);
+	}
+
+	/**
+	 * Dispatches the event to a handler chain, and completes the completion once
+	 * every subscriber has been invoked. A tracked post carries a ticket through
+	 * all of its deliveries even if the async queue is not bounded.
+	 */
+	void dispatch(Object event, ListenerMethod[] subscribers, PostCompletion completion) {
+		// enter before checking the flag, so that a close either waits for this
+		// post or the post sees the close. An admitted post is dispatched to all
+		// of its subscribers.
+		inFlight.enter();
+		try {
+			if (isShutdownInitiated) {
+				rejectPost(event, completion);
+				return;
+			}
+			AsyncQueue queue = asyncQueue;
+			AsyncQueue.Ticket ticket;
+			if (queue != null && !(event instanceof ExceptionEvent) && hasAsync(subscribers)) {
+				ticket = queue.admit(event, completion);
+			} else if (completion != null) {
+				ticket = AsyncQueue.track(event, completion);
+			} else {
+				dispatchChain(event, subscribers, null);
+				return;
+			}
+			try {
+				dispatchChain(event, subscribers, ticket);
+			} finally {
+				ticket.complete();
+			}
+		} finally {
+			inFlight.exit();
+		}
+	}
+
+	private void rejectPost(Object event, PostCompletion completion) {
+		logger.trace("Shutdown initiated. No more dispatching.");
+		// errors of the deliveries drained by a close are logged only
+		if (!(event instanceof ExceptionEvent))
+			rejectedPosts.incrementAndGet();
+		if (completion != null) {
+			completion.markDropped();
+			completion.complete();
+		}
+	}
+
+	/**
+	 * Dispatches events of the same class, which share their subscribers. The
+	 * unordered async subscribers receive the events in batches, one task per
+	 * chunk of events and chunk of subscribers, and the other subscribers receive
+	 * them one after another. Events which need the single event path, i.e.
+	 * {@link HandlerChainAware} events or events of a bounded async queue, are
+	 * dispatched one by one.
+	 */
+	void dispatchAll(Object[] events, ListenerMethod[] subscribers) {
+		inFlight.enter();
+		try {
+			if (isShutdownInitiated) {
+				logger.trace("Shutdown initiated. No more dispatching.");
+				rejectedPosts.addAndGet(events.length);
+				return;
+			}
+			dispatchRun(events, subscribers);
+		} finally {
+			inFlight.exit();
+		}
+	}
+
+	private void dispatchRun(Object[] events, ListenerMethod[] subscribers) {
+		if (asyncQueue != null || events[0] instanceof HandlerChainAware) {
+			for (Object event : events)
+				dispatch(event, subscribers);
+			return;
+		}
+		int asyncCount = 0;
+		for (ListenerMethod listenerMethod : subscribers) {
+			if (listenerMethod.async && !listenerMethod.isQueued())
+				asyncCount++;
+		}
+		if (asyncCount == 0) {
+			for (Object event : events)
+				dispatchChain(event, subscribers, null);
+			return;
+		}
+
+		ListenerMethod[] asyncSubscribers = new ListenerMethod[asyncCount];
+		int index = 0;
+		for (ListenerMethod listenerMethod : subscribers) {
+			if (listenerMethod.async && !listenerMethod.isQueued())
+				asyncSubscribers[index++] = listenerMethod;
+		}
+		int chunkSize = asyncChunkSize;
+		for (int eventStart = 0; eventStart < events.length; eventStart += chunkSize) {
+			int eventEnd = Math.min(events.length, eventStart + chunkSize);
+			for (int start = 0; start < asyncCount; start += chunkSize) {
+				execute(new AsyncBatchDispatch(events, eventStart, eventEnd, asyncSubscribers, start,
+						Math.min(asyncCount, start + chunkSize)));
+			}
+		}
+
+		if (asyncCount == subscribers.length)
+			return;
+		for (Object event : events) {
+			for (ListenerMethod listenerMethod : subscribers) {
+				if (listenerMethod.async && !listenerMethod.isQueued())
+					continue;
+				if (listenerMethod.isQueued())
+					dispatchOrdered(event, listenerMethod, null);
+				else
+					dispatchSingle(event, listenerMethod);
+			}
+		}
+	}
+
+	private static boolean hasAsync(ListenerMethod[] subscribers) {
+		for (ListenerMethod listenerMethod : subscribers) {
+			if (listenerMethod.async)
+				return true;
+		}
+		return false;
+	}
+
+	private void dispatchChain(Object event, ListenerMethod[] subscribers, AsyncQueue.Ticket ticket) {
+		// iterate over the subscriber list and check the execution mode of each
+		// subscriber. A close initiated meanwhile waits for the whole chain. Consecutive async subscribers are collected and
+		// dispatched to the executor service together, before the next
+		// synchronous subscriber is invoked.
+
+		DefaultHandlerChain handlerChain = null;
+		if (event instanceof HandlerChainAware) {
+			handlerChain = new DefaultHandlerChain();
+			((HandlerChainAware) event).setHandlerChain(handlerChain);
+		}
+
+		// index of the first subscriber of the pending async run, -1 if none
+		int asyncStart = -1;
+		for (int i = 0; i < subscribers.length; i++) {
+			ListenerMethod listenerMethod = subscribers[i];
+			if (listenerMethod.async && !listenerMethod.isQueued()) {
+				if (asyncStart < 0) {
+					if (ticket != null && ticket.drops())
+						continue;
+					// nothing can signal an interruption within a run of async
+					// subscribers, so it is checked at its start only.
+					if (handlerChain == null || !handlerChain.interrupt)
+						asyncStart = i;
+				}
+				continue;
+			}
+			if (asyncStart >= 0) {
+				dispatchAsync(event, subscribers, asyncStart, i, ticket);
+				asyncStart = -1;
+			}
+			if (listenerMethod.isQueued() && ticket != null && ticket.drops())
+				continue;
+
+			// check for interruption signal before each invocation. if interrupted,
+			// no more invocation will happen from the handler chain.
+			if (handlerChain == null || !handlerChain.interrupt) {
+				if (listenerMethod.isQueued()) {
+					// ordered subscribers are queued on the posting thread, to keep
+					// the order of the posts.
+					logger.trace("Queueing event for listener {}", listenerMethod);
+					dispatchOrdered(event, listenerMethod, ticket);
+				} else {
+					logger.trace("Executing listener {}", listenerMethod);
+					Throwable error = dispatchSingle(event, listenerMethod);
+					if (error != null && ticket != null)
+						ticket.fail(error);
+				}
+			}
+		}
+		if (asyncStart >= 0)
+			dispatchAsync(event, subscribers, asyncStart, subscribers.length, ticket);
+	}
+
+	/**
+	 * Dispatches the async subscribers {@code subscribers[from, to)} to the
+	 * executor service, in chunks of at most {@code asyncChunkSize} subscribers
+	 * per task.
+	 */
+	private void dispatchAsync(Object event, ListenerMethod[] subscribers, int from, int to,
+			AsyncQueue.Ticket ticket) {
+		if (ticket != null && ticket.callerRuns()) {
+			for (int i = from; i < to; i++) {
+				Throwable error = dispatchSingle(event, subscribers[i]);
+				if (error != null)
+					ticket.fail(error);
+			}
+			return;
+		}
+		int chunkSize = asyncChunkSize;
+		for (int start = from; start < to;) {
+			int end = to - start <= chunkSize ? to : start + chunkSize;
+			if (logger.isTraceEnabled())
+				logger.trace("Executing {} listeners asynchronously for event {}", end - start, event);
+			if (ticket == null) {
+				execute(new AsyncDispatch(event, subscribers, start, end, null));
+			} else {
+				ticket.fork();
+				try {
+					execute(new AsyncDispatch(event, subscribers, start, end, ticket));
+				} catch (RejectedExecutionException e) {
+					ticket.complete();
+					throw e;
+				}
+			}
+			start = end;
+		}
+	}
+
+	/**
+	 * Executes an async delivery task, which exits the in-flight count once it
+	 * has run.
+	 */
+	private void execute(Runnable task) {
+		inFlight.enter();
+		try {
+			executorService.execute(task);
+		} catch (RejectedExecutionException e) {
+			inFlight.exit();
+			throw e;
+		}
+	}
+
+	/**
+	 * Queues the event into the mailbox of an ordered or conflating async
+	 * subscriber, or into the lane of its key for a partitioned subscriber, and
+	 * schedules the mailbox if it is not being drained already. Events admitted
+	 * into a bounded async queue or tracked by a completion are queued along with
+	 * their ticket.
+	 */
+	private void dispatchOrdered(Object event, ListenerMethod listenerMethod, AsyncQueue.Ticket ticket) {
+		if (listenerMethod.batch != null) {
+			dispatchBatch(event, listenerMethod);
+			return;
+		}
+		Object item = event;
+		if (ticket != null && ticket.isTracked()) {
+			ticket.fork();
+			item = ticket;
+		}
+		inFlight.enter();
+		if (listenerMethod.conflate) {
+			ConflatingMailbox mailbox = (ConflatingMailbox) listenerMethod.mailbox;
+			Object replaced = mailbox.put(keyExtractors.getKey(event), item);
+			// a replaced event is never delivered, its admission ends here
+			if (replaced != null)
+				inFlight.exit();
+			if (replaced instanceof AsyncQueue.Ticket)
+				((AsyncQueue.Ticket) replaced).skip();
+			if (mailbox.schedule())
+				executeDrain(new MailboxDrain(listenerMethod, mailbox));
+			return;
+		}
+		Mailbox mailbox = listenerMethod.lanes != null ? lane(listenerMethod.lanes, keyExtractors.getKey(event))
+				: listenerMethod.mailbox;
+		if (mailbox.offer(item))
+			executeDrain(new MailboxDrain(listenerMethod, mailbox));
+	}
+
+	/**
+	 * Executes the drain of a scheduled mailbox. If the executor rejects it, the
+	 * queued events are discarded and the mailbox is released, so that it does
+	 * not stay scheduled without a drain and the discarded events leave the
+	 * in-flight count.
+	 */
+	private void executeDrain(MailboxDrain drain) {
+		for (;;) {
+			try {
+				executorService.execute(drain);
+				return;
+			} catch (RejectedExecutionException e) {
+				drain.discard();
+				// events queued meanwhile have scheduled the mailbox again
+				if (!drain.mailbox.release())
+					throw e;
+			}
+		}
+	}
+
+	/**
+	 * Gets the lane of a key, the first lane for a null key.
+	 */
+	private static Mailbox lane(Mailbox[] lanes, Object key) {
+		if (key == null)
+			return lanes[0];
+		int hash = key.hashCode();
+		// spread the high bits, keys often differ in them only
+		hash ^= hash >>> 16;
+		return lanes[(hash & Integer.MAX_VALUE) % lanes.length];
+	}
+
+	/**
+	 * Adds the event to the current batch of a batch subscriber. A full batch is
+	 * queued into the mailbox of the subscriber, and the first event of a batch
+	 * starts its linger timer. Batched events are not held by a bounded async
+	 * queue, a batch holds at most its maximum size.
+	 */
+	private void dispatchBatch(Object event, ListenerMethod listenerMethod) {
+		Batch batch = listenerMethod.batch;
+		List<Object> full;
+		boolean scheduleTimer;
+		synchronized (batch) {
+			// the subscriber has been cancelled since the post resolved it
+			if (batch.isClosed())
+				return;
+			inFlight.enter();
+			full = batch.add(event);
+			scheduleTimer = batch.scheduleTimer();
+		}
+		if (full != null)
+			deliverBatch(listenerMethod, full);
+		if (scheduleTimer)
+			Scheduler.schedule(new BatchTimer(listenerMethod), batch.lingerNanos);
+	}
+
+	private void deliverBatch(ListenerMethod listenerMethod, List<Object> events) {
+		if (listenerMethod.mailbox.offer(events))
+			executeDrain(new MailboxDrain(listenerMethod, listenerMethod.mailbox));
+	}
+
+	/**
+	 * Discards the pending events of a cancelled batch subscriber. Its batch is
+	 * closed, so that a post which resolved the subscriber before the
+	 * cancellation does not add more.
+	 */
+	void discardBatch(ListenerMethod listenerMethod) {
+		List<Object> events = listenerMethod.batch.close();
+		if (events != null) {
+			logger.debug("Discarding {} pending events of cancelled {}", events.size(), listenerMethod);
+			inFlight.exit(events.size());
+		}
+	}
+
+	/**
+	 * Delivers the pending events of the batch subscribers, regardless of the
+	 * size of their batches. A batch rejected by the executor is discarded, the
+	 * other batches are still delivered.
+	 */
+	void flushBatches() {
+		for (ListenerMethod listenerMethod : listenersRegistry.getBatchSubscribers()) {
+			List<Object> events = listenerMethod.batch.take();
+			if (events == null)
+				continue;
+			try {
+				deliverBatch(listenerMethod, events);
+			} catch (RejectedExecutionException e) {
+				logger.error("Batch of " + listenerMethod + " rejected by the executor", e);
+			}
+		}
+	}
+
+	/**
+	 * Bounds the number of events whose async deliveries are pending.
+	 */
+	void setAsyncQueueLimit(int maxEvents, OverflowPolicy overflowPolicy) {
+		getAsyncQueue().setLimit(maxEvents, overflowPolicy);
+	}
+
+	/**
+	 * Bounds the total weight of the events whose async deliveries are pending.
+	 */
+	void setAsyncQueueBudget(long maxWeight, EventWeigher<?> weigher) {
+		getAsyncQueue().setBudget(maxWeight, weigher);
+	}
+
+	AsyncQueueStatistics getAsyncQueueStatistics() {
+		AsyncQueue queue = asyncQueue;
+		return queue == null ? new AsyncQueueStatistics(0, 0, 0, 0, 0, 0) : queue.getStatistics();
+	}
+
+	private synchronized AsyncQueue getAsyncQueue() {
+		if (asyncQueue == null)
+			asyncQueue = new AsyncQueue();
+		return asyncQueue;
+	}
+
+	/**
+	 * Sets the maximum number of async subscribers of an event which are invoked
+	 * one after another by a single executor task.
+	 */
+	void setAsyncChunkSize(int asyncChunkSize) {
+		if (asyncChunkSize <= 0)
+			throw new IllegalArgumentException("Async chunk size must be positive.");
+		this.asyncChunkSize = asyncChunkSize;
+	}
+
+	/**
+	 * Executes the subscriber synchronously.
+	 *
+	 * @return the error thrown by the subscriber method, null if there is none.
+	 */
+	private Throwable dispatchSingle(Object event, ListenerMethod listenerMethod) {
+		try {
+			Object listener;
+			if (listenerMethod.holdWeakReference) {
+				listener = listenerMethod.weakListener.get();
+				if (listener == null) {
+					// if underlying object is no more, remove it from the runtime and
+					// all of its associations.
+					listenersRegistry.removeWeakListener(listenerMethod);
+					return null;
+				}
+			} else {
+				listener = listenerMethod.target;
+			}
+			// invoke synchronously, reusing the thread's invocation context and
+			// argument array.
+			CurrentJBus.Context context = CurrentJBus.INSTANCE.context();
+			context.push(jbus, listener);
+			try {
+				if (listenerMethod.invoker != null) {
+					listenerMethod.invoker.invoke(listener, event);
+				} else {
+					Object[] arguments = context.arguments;
+					arguments[0] = event;
+					try {
+						listenerMethod.method.invoke(listener, arguments);
+					} finally {
+						arguments[0] = null;
+					}
+				}
+			} finally {
+				context.pop();
+			}
+			return null;
+		} catch (InvocationTargetException e) {
+			handleError(event, listenerMethod, e.getCause());
+			return e.getCause();
+		} catch (Throwable e) {
+			handleError(event, listenerMethod, e);
+			return e;
+		}
+	}
+
+	private void handleError(Object event, ListenerMethod listenerMethod, Throwable error) {
+		logger.error("Error occurred while invoking " + listenerMethod, error);
+		errorHandler.handle(event, listenerMethod, error);
+	}
+
+	/**
+	 * Waits at most the given time until no post is being dispatched and no async
+	 * delivery is pending, including the events of incomplete batches.
+	 */
+	boolean awaitQuiescence(long timeout, TimeUnit unit) throws InterruptedException {
+		return inFlight.await(timeout, unit);
+	}
+
+	/**
+	 * Stops accepting posts, delivers the pending batches, and waits at most the
+	 * given time for the pending deliveries. Then shuts down the executor, and
+	 * interrupts the deliveries still running if the deadline has passed.
+	 */
+	CloseReport close(long timeout, TimeUnit unit) throws InterruptedException {
+		// set a flag to indicate the shutdown has been initiated, so that no more
+		// dispatch happens, then deliver the pending batches.
+		isShutdownInitiated = true;
+		flushBatches();
+		boolean drained = inFlight.await(timeout, unit);
+		long abandoned = 0;
+		if (drained) {
+			logger.debug("Shutting down executor, no more event will be dispatched.");
+			executorService.shutdown();
+			logger.debug("Executor has been shutdown gracefully.");
+		} else {
+			abandoned = inFlight.get();
+			logger.warn("{} deliveries still pending after {} {}, shutting down executor now.", abandoned, timeout,
+					unit);
+			executorService.shutdownNow();
+		}
+		return new CloseReport(drained, abandoned, rejectedPosts.get(),
+				getAsyncQueueStatistics().getDroppedEvents());
+	}
+
+	/**
+	 * Creates a shutdown hook.
+	 */
+	private Runnable getShutdownHook() {
+		return new Runnable() {
+			@Override
+			public void run() {
+				try {
+					CloseReport report = close(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+					logger.debug("Event bus closed: {}", report);
+				} catch (InterruptedException e) {
+					executorService.shutdownNow();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Registers a shutdown hook to the JVM for graceful shutdown of the event bus.
+	 */
+	void addShutdownHook() {
+		// set a shutdown hook to gracefully shutdown executors
+		Runtime.getRuntime().addShutdownHook(new Thread(getShutdownHook()));
+	}
+
+	/**
+	 * An executor task invoking a chunk of the async subscribers of an event. A
+	 * task with a ticket reads the event from it, so that dropping the event
+	 * releases it even though the task is still queued in the executor.
+	 */
+	private final class AsyncDispatch implements Runnable {
+		// null if the task has a ticket
+		private final Object event;
+		private final ListenerMethod[] subscribers;
+		private final int from;
+		private final int to;
+		private final AsyncQueue.Ticket ticket;
+
+		AsyncDispatch(Object event, ListenerMethod[] subscribers, int from, int to, AsyncQueue.Ticket ticket) {
+			this.event = ticket == null ? event : null;
+			this.subscribers = subscribers;
+			this.from = from;
+			this.to = to;
+			this.ticket = ticket;
+		}
+
+		@Override
+		public void run() {
+			try {
+				// a dropped event is not delivered
+				if (ticket == null || ticket.start())
+					deliver();
+			} finally {
+				if (ticket != null)
+					ticket.complete();
+				inFlight.exit();
+			}
+		}
+
+		private void deliver() {
+			Object event = ticket == null ? this.event : ticket.event;
+			for (int i = from; i < to; i++) {
+				Throwable error = dispatchSingle(event, subscribers[i]);
+				if (error != null && ticket != null)
+					ticket.fail(error);
+			}
+		}
+	}
+
+	/**
+	 * A timer task delivering a batch once its first event has lingered long
+	 * enough. If the batch has been delivered meanwhile, the timer is rescheduled
+	 * for the next batch, if any.
+	 */
+	private final class BatchTimer implements Runnable {
+		private final ListenerMethod listenerMethod;
+
+		BatchTimer(ListenerMethod listenerMethod) {
+			this.listenerMethod = listenerMethod;
+		}
+
+		@Override
+		public void run() {
+			Batch batch = listenerMethod.batch;
+			List<Object> expired;
+			long delay = -1;
+			synchronized (batch) {
+				expired = batch.expire();
+				if (batch.scheduleTimer())
+					delay = batch.remainingNanos();
+			}
+			if (expired != null)
+				deliverBatch(listenerMethod, expired);
+			if (delay >= 0)
+				Scheduler.schedule(this, delay);
+		}
+	}
+
+	/**
+	 * An executor task invoking a chunk of async subscribers for a chunk of
+	 * events. Each subscriber receives the events in their posting order.
+	 */
+	private final class AsyncBatchDispatch implements Runnable {
+		private final Object[] events;
+		private final int eventFrom;
+		private final int eventTo;
+		private final ListenerMethod[] subscribers;
+		private final int from;
+		private final int to;
+
+		AsyncBatchDispatch(Object[] events, int eventFrom, int eventTo, ListenerMethod[] subscribers, int from,
+				int to) {
+			this.events = events;
+			this.eventFrom = eventFrom;
+			this.eventTo = eventTo;
+			this.subscribers = subscribers;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public void run() {
+			try {
+				for (int e = eventFrom; e < eventTo; e++) {
+					for (int i = from; i < to; i++)
+						dispatchSingle(events[e], subscribers[i]);
+				}
+			} finally {
+				inFlight.exit();
+			}
+		}
+	}
+
+	/**
+	 * An executor task delivering the queued events of a mailbox or a lane of an
+	 * async subscriber, one after another. The drain of a throttled subscriber is
+	 * handed over to the timer until its window has passed, the mailbox stays
+	 * scheduled meanwhile.
+	 */
+	private final class MailboxDrain implements Runnable {
+		private final ListenerMethod listenerMethod;
+		private final Mailbox mailbox;
+
+		MailboxDrain(ListenerMethod listenerMethod, Mailbox mailbox) {
+			this.listenerMethod = listenerMethod;
+			this.mailbox = mailbox;
+		}
+
+		@Override
+		public void run() {
+			long delay = mailbox.delayNanos();
+			if (delay > 0) {
+				Scheduler.schedule(new Runnable() {
+					@Override
+					public void run() {
+						executeDrain(MailboxDrain.this);
+					}
+				}, delay);
+				return;
+			}
+			try {
+				int limit = mailbox.startDrain(MAX_MAILBOX_DRAIN);
+				for (int i = 0; i < limit; i++) {
+					Object event = mailbox.poll();
+					if (event == null)
+						break;
+					if (event instanceof AsyncQueue.Ticket) {
+						AsyncQueue.Ticket ticket = (AsyncQueue.Ticket) event;
+						try {
+							Throwable error = ticket.start() ? dispatchSingle(ticket.event, listenerMethod) : null;
+							if (error != null)
+								ticket.fail(error);
+						} finally {
+							ticket.complete();
+							inFlight.exit();
+						}
+					} else {
+						dispatchSingle(event, listenerMethod);
+						inFlight.exit(count(event));
+					}
+				}
+			} finally {
+				if (mailbox.release())
+					executeDrain(this);
+			}
+		}
+
+		/**
+		 * Discards the queued events, once the executor has rejected the drain.
+		 */
+		void discard() {
+			Object event;
+			while ((event = mailbox.poll()) != null) {
+				if (event instanceof AsyncQueue.Ticket)
+					((AsyncQueue.Ticket) event).skip();
+				inFlight.exit(count(event));
+			}
+		}
+
+		private int count(Object event) {
+			// the events of a batch have entered the in-flight count one by one
+			return listenerMethod.batch != null ? ((List<?>) event).size() : 1;
+		}
+	}
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+/**
+ * Estimates the memory retained by a queued event, in bytes or any other unit
+ * the budget of the async queue is expressed in.
+ *
+ * @param <X> the type of the weighed events.
+ * @since 1.2
+ * @see JBus#setAsyncQueueBudget(long, EventWeigher)
+ */
+public interface EventWeigher<X> {
+    /**
+     * Weighs an event. It is called once per post, on the posting thread.
+     *
+     * @param event the event being posted.
+     * @return the weight of the event, not negative.
+     * */
+    long weigh(X event);
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the work of an event bus which is in progress, i.e. the posts being
+ * dispatched and the async deliveries handed over to its executor, mailboxes
+ * and batches. The bus is quiescent once the count drops to zero.
+ *
+ * @since 1.2
+ */
+final class InFlight {
+	private final AtomicLong count = new AtomicLong();
+	// number of threads waiting for quiescence, so that the posts do not have to
+	// take the lock unless someone is waiting.
+	private final AtomicInteger waiters = new AtomicInteger();
+	private final Object lock = new Object();
+
+	void enter() {
+		count.incrementAndGet();
+	}
+
+	void exit() {
+		exit(1);
+	}
+
+	void exit(long n) {
+		if (count.addAndGet(-n) == 0 && waiters.get() > 0) {
+			synchronized (lock) {
+				lock.notifyAll();
+			}
+		}
+	}
+
+	long get() {
+		return count.get();
+	}
+
+	/**
+	 * Waits at most the given time until the count drops to zero.
+	 *
+	 * @return true if the count is zero, false if the wait timed out.
+	 */
+	boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		waiters.incrementAndGet();
+		try {
+			synchronized (lock) {
+				while (count.get() > 0) {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0)
+						return false;
+					TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+				}
+				return true;
+			}
+		} finally {
+			waiters.decrementAndGet();
+		}
+	}
+}
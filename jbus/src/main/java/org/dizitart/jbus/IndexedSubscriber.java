@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+/**
+ * Compile time information of a subscriber method, provided by a
+ * {@link SubscriberIndex}.
+ *
+ * @since 1.2
+ * @see SubscriberIndex
+ */
+public final class IndexedSubscriber {
+    private final Class<?> declaringClass;
+    private final String methodName;
+    private final Class<?> eventType;
+    private final boolean async;
+    private final boolean ordered;
+    private final int priority;
+    private final boolean conflate;
+    private final long throttleMillis;
+    private final SubscriberInvoker invoker;
+
+    /**
+     * Instantiates a new indexed subscriber.
+     *
+     * @param declaringClass the class declaring the subscriber method.
+     * @param methodName the name of the subscriber method.
+     * @param eventType the parameter type of the subscriber method.
+     * @param async the execution mode declared via {@link Subscribe#async()}.
+     * @param invoker the direct invoker of the method, or {@code null} if the
+     *                method is not accessible from generated code, in which case
+     *                it will be invoked via reflection.
+     * */
+    public IndexedSubscriber(Class<?> declaringClass, String methodName, Class<?> eventType, boolean async,
+                             SubscriberInvoker invoker) {
+        this(declaringClass, methodName, eventType, async, false, invoker);
+    }
+
+    /**
+     * Instantiates a new indexed subscriber.
+     *
+     * @param declaringClass the class declaring the subscriber method.
+     * @param methodName the name of the subscriber method.
+     * @param eventType the parameter type of the subscriber method.
+     * @param async the execution mode declared via {@link Subscribe#async()}.
+     * @param ordered the delivery order declared via {@link Subscribe#ordered()}.
+     * @param invoker the direct invoker of the method, or {@code null} if the
+     *                method is not accessible from generated code, in which case
+     *                it will be invoked via reflection.
+     * */
+    public IndexedSubscriber(Class<?> declaringClass, String methodName, Class<?> eventType, boolean async,
+                             boolean ordered, SubscriberInvoker invoker) {
+        this(declaringClass, methodName, eventType, async, ordered, 0, invoker);
+    }
+
+    /**
+     * Instantiates a new indexed subscriber.
+     *
+     * @param declaringClass the class declaring the subscriber method.
+     * @param methodName the name of the subscriber method.
+     * @param eventType the parameter type of the subscriber method.
+     * @param async the execution mode declared via {@link Subscribe#async()}.
+     * @param ordered the delivery order declared via {@link Subscribe#ordered()}.
+     * @param priority the priority declared via {@link Subscribe#priority()}.
+     * @param invoker the direct invoker of the method, or {@code null} if the
+     *                method is not accessible from generated code, in which case
+     *                it will be invoked via reflection.
+     * */
+    public IndexedSubscriber(Class<?> declaringClass, String methodName, Class<?> eventType, boolean async,
+                             boolean ordered, int priority, SubscriberInvoker invoker) {
+        this(declaringClass, methodName, eventType, async, ordered, priority, false, 0, invoker);
+    }
+
+    /**
+     * Instantiates a new indexed subscriber.
+     *
+     * @param declaringClass the class declaring the subscriber method.
+     * @param methodName the name of the subscriber method.
+     * @param eventType the parameter type of the subscriber method.
+     * @param async the execution mode declared via {@link Subscribe#async()}.
+     * @param ordered the delivery order declared via {@link Subscribe#ordered()}.
+     * @param priority the priority declared via {@link Subscribe#priority()}.
+     * @param conflate the conflation declared via {@link Subscribe#conflate()}.
+     * @param throttleMillis the window declared via {@link Subscribe#throttleMillis()}.
+     * @param invoker the direct invoker of the method, or {@code null} if the
+     *                method is not accessible from generated code, in which case
+     *                it will be invoked via reflection.
+     * */
+    public IndexedSubscriber(Class<?> declaringClass, String methodName, Class<?> eventType, boolean async,
+                             boolean ordered, int priority, boolean conflate, long throttleMillis,
+                             SubscriberInvoker invoker) {
+        this.declaringClass = Utils.requireNonNull(declaringClass);
+        this.methodName = Utils.requireNonNull(methodName);
+        this.eventType = Utils.requireNonNull(eventType);
+        this.async = async;
+        this.ordered = ordered;
+        this.priority = priority;
+        this.conflate = conflate;
+        this.throttleMillis = throttleMillis;
+        this.invoker = invoker;
+    }
+
+    /**
+     * Gets the class declaring the subscriber method.
+     *
+     * @return the declaring class.
+     * */
+    public Class<?> getDeclaringClass() {
+        return declaringClass;
+    }
+
+    /**
+     * Gets the name of the subscriber method.
+     *
+     * @return the method name.
+     * */
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * Gets the parameter type of the subscriber method.
+     *
+     * @return the event type.
+     * */
+    public Class<?> getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Gets the declared execution mode of the subscriber method.
+     *
+     * @return async flag.
+     * */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Gets the declared delivery order of the subscriber method.
+     *
+     * @return ordered flag.
+     * */
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * Gets the declared priority of the subscriber method.
+     *
+     * @return the priority.
+     * */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Gets the declared conflation of the subscriber method.
+     *
+     * @return conflate flag.
+     * */
+    public boolean isConflate() {
+        return conflate;
+    }
+
+    /**
+     * Gets the declared throttle window of the subscriber method.
+     *
+     * @return the window in milliseconds.
+     * */
+    public long getThrottleMillis() {
+        return throttleMillis;
+    }
+
+    /**
+     * Gets the direct invoker of the subscriber method.
+     *
+     * @return the invoker, or {@code null} if the method has to be invoked via
+     * reflection.
+     * */
+    public SubscriberInvoker getInvoker() {
+        return invoker;
+    }
+}
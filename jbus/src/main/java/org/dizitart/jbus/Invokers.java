@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.lang.reflect.Method;
+
+/**
+ * Creates invokers for subscriber methods found via reflection. Java 6 has no
+ * means to generate them, so the subscriber methods are invoked via
+ * {@link Method#invoke(Object, Object...)}. On Java 9+ this class is replaced
+ * by its multi-release version, which uses method handles.
+ *
+ * @since 1.2
+ */
+class Invokers {
+
+	/**
+	 * Creates an invoker for a subscriber method.
+	 *
+	 * @return the invoker, or null if the method has to be invoked via reflection.
+	 */
+	static SubscriberInvoker create(Method method) {
+		return null;
+	}
+}
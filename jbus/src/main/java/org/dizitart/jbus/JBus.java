@@ -0,0 +1,828 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * An event bus for java 1.6+. It dispatches event to registered listeners.
+ *
+ * <p>
+ * It is a simple but powerful publish-subscribe event system. It requires
+ * object to register themselves with the event bus to receive events. This
+ * event bus is safe for concurrent use.
+ * </p>
+ *
+ * <p>
+ * <b>To receive events</b> from event bus, an object must:
+ * <ol>
+ * <li>register itself with the event bus via {@link #register(Object)} or
+ * {@link #registerWeak(Object)} method</li>
+ * <li>have at least one method marked with {@link Subscribe} annotation in its
+ * class hierarchy</li>
+ * <li>subscribed method should accept <b>only one parameter</b> having the type
+ * of the event</li>
+ * </ol>
+ *
+ *
+ * {@link #register(Object)} will scan the input object for any method which has
+ * been marked with {@link Subscribe} annotation and it will keep track of all
+ * such methods found. If the subscribing method has more than one parameter,
+ * runtime will throw a {@link JBusException} during registration. A subscriber
+ * method can have any access modifier. {@link #register(Object)} will scan
+ * through full class hierarchy of the input object including any super class
+ * and interfaces.
+ *
+ * <p>
+ * Upon successful registration, the runtime will keep track of all subscriber
+ * methods found along with a strong reference of the input object for future
+ * invocation. To store a weak reference of the input object instead of a strong
+ * one, use the {@link #registerWeak(Object)} variant.
+ * </p>
+ *
+ * A developer must {@link #deregister(Object)} the object to stop receiving
+ * events. The behavior of {@link #deregister(Object)} is not deterministic in
+ * the case of <em>weak registration</em> of the object. As the runtime
+ * automatically cleans up any invalid weak references and any subscriber
+ * methods associated with it as it goes, so a call to
+ * {@link #deregister(Object)} might not do anything if the object has already
+ * been garbage collected and the event bus runtime has cleared up its records
+ * of subscriber methods already.
+ *
+ *
+ * <p>
+ * <b>To post an event</b> to the event bus, simply call {@link #post(Object)}
+ * passing the event object. Event bus will automatically route the event
+ * depending on its type to a handler chain. Handler chain is a collection of
+ * registered subscribers of the event. By design, event bus does not support
+ * inheritance for the event object.
+ * </p>
+ *
+ * If an event implements {@link HandlerChainAware} then before each invocation,
+ * the runtime will check if an interruption has been signalled from the
+ * subscriber code via {@link HandlerChain#interrupt()} call. If interrupted,
+ * further invocation of the handler chain will be barred until the next
+ * {@link #post(Object)} call for the event.
+ *
+ * <p>
+ * <b>Subscriber execution</b> mode can be either <em>synchronous</em> or
+ * <em>asynchronous</em> depending on the {@link Subscribe} annotation.
+ * </p>
+ *
+ * In case of any error from subscriber code during invocation, the runtime will
+ * first search for any {@link ExceptionEvent} handler registered into the
+ * system and dispatch the error along with relevant information in
+ * {@link ExceptionContext} to the handler if found. If no such error handler is
+ * found, runtime will just log the error and move on.
+ *
+ *
+ * @since 1.0
+ * @author Anindya Chatterjee.
+ * @see Subscribe
+ * @see HandlerChain
+ * @see HandlerChainAware
+ * @see ExceptionEvent
+ * @see ExceptionContext
+ */
+public class JBus<T> {
+
+	private static final Class<?> THIS_CLASS = new Object() {
+	}.getClass().getEnclosingClass();
+	private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(THIS_CLASS);
+	// maximum number of garbage collected weak listeners reclaimed per post
+	private static final int MAX_RECLAIMS_PER_POST = 16;
+	// maximum number of consecutive events of a class dispatched together by postAll
+	private static final int MAX_POST_ALL_RUN = 1024;
+
+	/**
+	 * Adds a subscriber index to the runtime. Indexes generated by the JBus
+	 * annotation processor are discovered automatically, this method is only
+	 * needed for indexes which are not registered as a service.
+	 *
+	 * @param subscriberIndex the subscriber index.
+	 */
+	public static void addSubscriberIndex(SubscriberIndex subscriberIndex) {
+		SubscriberIndexes.add(subscriberIndex);
+	}
+
+	public static void deregister() {
+		CurrentJBus.Context context = CurrentJBus.INSTANCE.context();
+		JBus<?> jBus = Utils.requireNonNull(context.jBus(), "could not access current jbus from thread");
+		jBus.deregister(context.listener());
+	}
+
+	private final ListenersRegistry<T> listenersRegistry;
+	private final EventDispatcher<T> eventDispatcher;
+	private final StickyEvents stickyEvents = new StickyEvents();
+	private String tag = "";
+
+	public JBus(Class<T> eventType) {
+		this(eventType, null);
+	}
+
+	/**
+	 * Instantiates a new event bus.
+	 */
+	public JBus(Class<T> busEventType, ExecutorService asyncExecutorService) {
+		this.listenersRegistry = new ListenersRegistry<T>(busEventType);
+		this.eventDispatcher = new EventDispatcher<T>(this, listenersRegistry,
+				asyncExecutorService != null ? asyncExecutorService : Executors.newCachedThreadPool());
+	}
+
+	protected Subscription registerObject(Object listener, boolean weak, boolean forceAsync,
+			Class<? extends T> eventType) {
+		return registerObject(listener, weak, forceAsync, eventType, 0);
+	}
+
+	protected Subscription registerObject(Object listener, boolean weak, boolean forceAsync,
+			Class<? extends T> eventType, int priority) {
+		return registerObject(listener, weak, forceAsync, eventType, priority, null, null);
+	}
+
+	private Subscription registerObject(Object listener, boolean weak, boolean forceAsync,
+			Class<? extends T> eventType, int priority, Object key, String topic) {
+		if (listener == null)
+			throw new NullPointerException("Null listener can not be registered.");
+		logger.trace("Registering object. listener:{} weak:{}", listener, weak);
+		ListenersRegistry.Registration registration = listenersRegistry.register(listener, weak, forceAsync,
+				eventType, priority, key, topic);
+		// sticky events are not published to any topic
+		if (topic == null && !stickyEvents.isEmpty())
+			postStickyEvents(registration);
+		return registration;
+	}
+
+	/**
+	 * Delivers the current sticky events to the subscriber methods of a new
+	 * registration.
+	 */
+	private void postStickyEvents(ListenersRegistry.Registration registration) {
+		for (Object event : stickyEvents.values()) {
+			ListenerMethod[] subscribers = registration.getSubscribers(event);
+			if (subscribers.length > 0) {
+				logger.trace("Dispatching sticky event {} to a new registration", event);
+				eventDispatcher.dispatch(event, subscribers);
+			}
+		}
+	}
+
+	/**
+	 * Registers an event listener to the event bus and keep a strong reference of
+	 * the listener object for invocation. To listen to events an object must be
+	 * registered first.
+	 *
+	 * @param listener the listener object.
+	 * @return the subscription handle of the listener.
+	 *
+	 * @exception JBusException        if the object is already registered or if
+	 *                                 there is no subscriber method in its class
+	 *                                 hierarchy.
+	 * @exception NullPointerException if the object is null.
+	 *
+	 */
+	public Subscription register(Object listener) {
+		return registerObject(listener, false, false, null);
+	}
+
+	public Subscription register(Object listener, Class<? extends T> eventType) {
+		return registerObject(listener, false, false, eventType);
+	}
+
+	public Subscription register(Listener<? extends T> listener) {
+		return registerObject(listener, false, false, null);
+	}
+
+	public <X extends T> Subscription register(Listener<? extends X> listener, Class<X> eventType) {
+		return registerObject(listener, false, false, eventType);
+	}
+
+	public Subscription registerAsync(Listener<? extends T> listener) {
+		return registerObject(listener, false, true, null);
+	}
+
+	public <X extends T> Subscription registerAsync(Listener<? extends X> listener, Class<X> eventType) {
+		return registerObject(listener, false, true, eventType);
+	}
+
+	/**
+	 * Registers a {@link Listener} with a priority within the handler chains of
+	 * its events, the same as {@link Subscribe#priority()} for a subscriber
+	 * method. Listeners with higher priority are invoked first.
+	 *
+	 * @param listener  the listener.
+	 * @param eventType the type of the events to listen to.
+	 * @param priority  the priority of the listener.
+	 * @return the subscription handle of the listener.
+	 */
+	public <X extends T> Subscription register(Listener<? extends X> listener, Class<X> eventType, int priority) {
+		return registerObject(listener, false, false, eventType, priority);
+	}
+
+	public <X extends T> Subscription registerAsync(Listener<? extends X> listener, Class<X> eventType,
+			int priority) {
+		return registerObject(listener, false, true, eventType, priority);
+	}
+
+	/**
+	 * Registers an event listener to the event bus, which only receives the
+	 * events of a single key. The key of an event is extracted by the
+	 * {@link KeyExtractor} set for its type via
+	 * {@link #setKeyExtractor(Class, KeyExtractor)}, and the keys are compared
+	 * via equals. The keyed subscriptions are indexed by their key, so a post
+	 * never visits the subscribers of the other keys.
+	 *
+	 * @param listener  the listener object.
+	 * @param eventType the type of the events to listen to.
+	 * @param key       the key of the events to listen to.
+	 * @return the subscription handle of the listener.
+	 *
+	 * @exception JBusException        if the object is already registered or if
+	 *                                 there is no subscriber method in its class
+	 *                                 hierarchy.
+	 * @exception NullPointerException if the object, the event type or the key is
+	 *                                 null.
+	 * @since 1.2
+	 */
+	public Subscription registerKeyed(Object listener, Class<? extends T> eventType, Object key) {
+		return registerObject(listener, false, false, Utils.requireNonNull(eventType), 0,
+				Utils.requireNonNull(key), null);
+	}
+
+	public Subscription registerKeyedWeak(Object listener, Class<? extends T> eventType, Object key) {
+		return registerObject(listener, true, false, Utils.requireNonNull(eventType), 0, Utils.requireNonNull(key),
+				null);
+	}
+
+	public <X extends T> Subscription registerKeyedAsync(Listener<? extends X> listener, Class<X> eventType,
+			Object key) {
+		return registerObject(listener, false, true, Utils.requireNonNull(eventType), 0, Utils.requireNonNull(key),
+				null);
+	}
+
+	public <X extends T> Subscription registerKeyedAsyncWeak(Listener<? extends X> listener, Class<X> eventType,
+			Object key) {
+		return registerObject(listener, true, true, Utils.requireNonNull(eventType), 0, Utils.requireNonNull(key),
+				null);
+	}
+
+	/**
+	 * Registers an event listener to the topic channel of the event bus. The
+	 * listener only receives the events published via
+	 * {@link #publish(String, Object)} to a topic which matches the pattern, and
+	 * never the events posted via {@link #post(Object)}.
+	 * <p>
+	 * A topic is a list of segments separated by dots, e.g.
+	 * {@code orders.eu.created}. In a pattern, {@code *} matches exactly one
+	 * segment and {@code #}, as the last segment, matches zero or more segments,
+	 * e.g. {@code orders.*.created} or {@code orders.#}.
+	 *
+	 * @param topicPattern the pattern of the topics to listen to.
+	 * @param listener     the listener object.
+	 * @return the subscription handle of the listener.
+	 *
+	 * @exception JBusException        if the pattern is invalid, or the object is
+	 *                                 already registered, or there is no
+	 *                                 subscriber method in its class hierarchy.
+	 * @exception NullPointerException if the pattern or the object is null.
+	 * @since 1.2
+	 */
+	public Subscription registerTopic(String topicPattern, Object listener) {
+		return registerObject(listener, false, false, null, 0, null, Utils.requireNonNull(topicPattern));
+	}
+
+	public Subscription registerTopicWeak(String topicPattern, Object listener) {
+		return registerObject(listener, true, false, null, 0, null, Utils.requireNonNull(topicPattern));
+	}
+
+	public <X extends T> Subscription registerTopicAsync(String topicPattern, Listener<? extends X> listener,
+			Class<X> eventType) {
+		return registerObject(listener, false, true, eventType, 0, null, Utils.requireNonNull(topicPattern));
+	}
+
+	/**
+	 * Registers a {@link BatchListener} to the event bus, the same as a
+	 * subscriber method declared via {@link Subscribe#batchSize()}.
+	 *
+	 * @param listener          the batch listener.
+	 * @param eventType         the type of the events to listen to.
+	 * @param maxBatchSize      the maximum number of events of a batch.
+	 * @param maxLingerMillis   the maximum time the first event of a batch waits
+	 *                          for the batch to fill up, 0 to wait until it is
+	 *                          full.
+	 * @return the subscription handle of the listener.
+	 *
+	 * @exception IllegalArgumentException if the batch size is not positive or the
+	 *                                     linger time is negative.
+	 */
+	public <X extends T> Subscription registerBatch(BatchListener<? super X> listener, Class<X> eventType,
+			int maxBatchSize, long maxLingerMillis) {
+		return registerBatch(listener, eventType, maxBatchSize, maxLingerMillis, false);
+	}
+
+	public <X extends T> Subscription registerBatchWeak(BatchListener<? super X> listener, Class<X> eventType,
+			int maxBatchSize, long maxLingerMillis) {
+		return registerBatch(listener, eventType, maxBatchSize, maxLingerMillis, true);
+	}
+
+	private Subscription registerBatch(BatchListener<?> listener, Class<? extends T> eventType, int maxBatchSize,
+			long maxLingerMillis, boolean weak) {
+		if (listener == null)
+			throw new NullPointerException("Null listener can not be registered.");
+		if (maxBatchSize <= 0)
+			throw new IllegalArgumentException("Batch size must be positive.");
+		if (maxLingerMillis < 0)
+			throw new IllegalArgumentException("Linger time must not be negative.");
+		ListenerMethod listenerMethod = ListenerMethod.forBatchListener(Utils.requireNonNull(eventType),
+				maxBatchSize, TimeUnit.MILLISECONDS.toNanos(maxLingerMillis));
+		ListenersRegistry.Registration registration = listenersRegistry.register(listener, weak,
+				Collections.singletonList(listenerMethod));
+		if (!stickyEvents.isEmpty())
+			postStickyEvents(registration);
+		return registration;
+	}
+
+	/**
+	 * Delivers the pending events of all batch subscribers, without waiting for
+	 * their batches to fill up. The shutdown hook flushes the batches as well.
+	 */
+	public void flushBatches() {
+		eventDispatcher.flushBatches();
+	}
+
+	/**
+	 * Registers an event listener to the event bus and keep a weak reference of the
+	 * listener object for invocation. To listen to events an object must be
+	 * registered first.
+	 *
+	 * @param listener the listener object.
+	 * @return the subscription handle of the listener.
+	 *
+	 * @exception JBusException        if the object is already registered or if
+	 *                                 there is no subscriber method in its class
+	 *                                 hierarchy.
+	 * @exception NullPointerException if the object is null.
+	 *
+	 */
+	public Subscription registerWeak(Object listener) {
+		return registerObject(listener, true, false, null);
+	}
+
+	public Subscription registerWeak(Object listener, Class<? extends T> eventType) {
+		return registerObject(listener, true, false, eventType);
+	}
+
+	public Subscription registerWeak(Listener<? extends T> listener) {
+		return registerObject(listener, true, false, null);
+	}
+
+	public <X extends T> Subscription registerWeak(Listener<? extends X> listener, Class<X> eventType) {
+		return registerObject(listener, true, false, eventType);
+	}
+
+	public Subscription registerAsyncWeak(Listener<? extends T> listener) {
+		return registerObject(listener, true, true, null);
+	}
+
+	public <X extends T> Subscription registerAsyncWeak(Listener<? extends X> listener, Class<X> eventType) {
+		return registerObject(listener, true, true, eventType);
+	}
+
+	public <X extends T> Subscription registerWeak(Listener<? extends X> listener, Class<X> eventType,
+			int priority) {
+		return registerObject(listener, true, false, eventType, priority);
+	}
+
+	public <X extends T> Subscription registerAsyncWeak(Listener<? extends X> listener, Class<X> eventType,
+			int priority) {
+		return registerObject(listener, true, true, eventType, priority);
+	}
+
+	/**
+	 * De-registers a listener object that has been registered with the event bus.
+	 * After de-registration, the object cease to listen to any further event. It
+	 * is equivalent to cancelling the {@link Subscription} returned on
+	 * registration.
+	 *
+	 * @param listener the listener object to deregister.
+	 *
+	 * @exception NullPointerException if the object is null.
+	 *
+	 */
+	public void deregister(Object listener) {
+		if (listener == null)
+			throw new NullPointerException("Null object can not be de-registered.");
+		logger.trace("Un-Registering listener {}", listener);
+		listenersRegistry.deregister(listener);
+	}
+
+	public void post(T event) {
+		post(event, false);
+	}
+
+	/**
+	 * Posts an event to the event bus.
+	 *
+	 * @param event the event to post.
+	 *
+	 * @exception NullPointerException if the event is null.
+	 * @exception JBusException        if the invoking subscriber method throws an
+	 *                                 exception.
+	 *
+	 */
+	public void post(T event, boolean requireSubscribers) {
+		if (event == null)
+			throw new NullPointerException("Null event can not be posted.");
+		logger.trace("Event {} has been posted to the bus {}", event, tag);
+		listenersRegistry.reclaimWeakListeners(MAX_RECLAIMS_PER_POST);
+
+		ListenerMethod[] subscribers = listenersRegistry.getSubscribers(event);
+		if (subscribers.length == 0) {
+			if (requireSubscribers)
+				throw new JBusException("Could not find subscribers for event:" + event);
+			return;
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Total subscribers found for event {} is = {}", event, subscribers.length);
+			logger.trace("Dispatching event {}", event);
+		}
+		eventDispatcher.dispatch(event, subscribers);
+	}
+
+	/**
+	 * Posts an event to the event bus, and returns a handle which completes once
+	 * every synchronous and asynchronous subscriber of the event has been
+	 * invoked. Errors thrown by the subscriber methods are handled as usual, and
+	 * also collected by the handle.
+	 *
+	 * @param event the event to post.
+	 * @return the completion handle of the post.
+	 *
+	 * @exception NullPointerException if the event is null.
+	 * @since 1.2
+	 */
+	public PostCompletion postAsync(T event) {
+		if (event == null)
+			throw new NullPointerException("Null event can not be posted.");
+		logger.trace("Event {} has been posted to the bus {}", event, tag);
+		listenersRegistry.reclaimWeakListeners(MAX_RECLAIMS_PER_POST);
+
+		PostCompletion completion = new PostCompletion();
+		ListenerMethod[] subscribers = listenersRegistry.getSubscribers(event);
+		if (subscribers.length == 0) {
+			completion.complete();
+			return completion;
+		}
+		eventDispatcher.dispatch(event, subscribers, completion);
+		return completion;
+	}
+
+	/**
+	 * Posts an event to the event bus, and waits at most the given time until
+	 * every subscriber of the event has been invoked.
+	 *
+	 * @param event   the event to post.
+	 * @param timeout the maximum time to wait.
+	 * @param unit    the unit of the timeout.
+	 * @return true if every subscriber has been invoked, false if the wait timed
+	 *         out.
+	 *
+	 * @exception NullPointerException if the event is null.
+	 * @exception JBusException        if any subscriber method has thrown an
+	 *                                 exception.
+	 * @exception InterruptedException if the posting thread is interrupted while
+	 *                                 waiting.
+	 * @since 1.2
+	 */
+	public boolean postAndWait(T event, long timeout, TimeUnit unit) throws InterruptedException {
+		Utils.requireNonNull(unit);
+		PostCompletion completion = postAsync(event);
+		try {
+			completion.get(timeout, unit);
+			return true;
+		} catch (TimeoutException e) {
+			return false;
+		} catch (ExecutionException e) {
+			throw (JBusException) e.getCause();
+		}
+	}
+
+	/**
+	 * Publishes an event to a topic of the event bus. It is dispatched to the
+	 * listeners registered via {@link #registerTopic(String, Object)} with a
+	 * matching pattern, like a post is dispatched to the listeners of the event
+	 * type. The subscribers of a topic are resolved once per topic and event
+	 * class, in time proportional to the depth of the topic.
+	 *
+	 * @param topic the topic, whose segments are separated by dots.
+	 * @param event the event to publish.
+	 *
+	 * @exception NullPointerException if the topic or the event is null.
+	 * @since 1.2
+	 */
+	public void publish(String topic, T event) {
+		Utils.requireNonNull(topic);
+		if (event == null)
+			throw new NullPointerException("Null event can not be posted.");
+		logger.trace("Event {} has been published to topic {} of the bus {}", event, topic, tag);
+		listenersRegistry.reclaimWeakListeners(MAX_RECLAIMS_PER_POST);
+
+		ListenerMethod[] subscribers = listenersRegistry.getSubscribers(topic, event);
+		if (subscribers.length == 0)
+			return;
+		eventDispatcher.dispatch(event, subscribers);
+	}
+
+	/**
+	 * Posts a collection of events to the event bus, in the iteration order of
+	 * the collection.
+	 *
+	 * @param events the events to post.
+	 *
+	 * @exception NullPointerException if the collection or any event is null.
+	 * @see #postAll(Iterator)
+	 */
+	public void postAll(Collection<? extends T> events) {
+		if (events == null)
+			throw new NullPointerException("Null events can not be posted.");
+		postAll(events.iterator());
+	}
+
+	/**
+	 * Posts the events of an iterator to the event bus. Synchronous subscribers
+	 * receive the events in iteration order, the same as posting them one by
+	 * one, but the subscribers of consecutive events of the same class are
+	 * looked up once, and async subscribers receive several of them per task of
+	 * the executor service.
+	 *
+	 * If the iterator returns a null event, the events before it have been posted
+	 * already.
+	 *
+	 * @param events the events to post.
+	 *
+	 * @exception NullPointerException if the iterator or any event is null.
+	 */
+	public void postAll(Iterator<? extends T> events) {
+		if (events == null)
+			throw new NullPointerException("Null events can not be posted.");
+		listenersRegistry.reclaimWeakListeners(MAX_RECLAIMS_PER_POST);
+
+		List<Object> run = new ArrayList<Object>();
+		Class<?> runClass = null;
+		while (events.hasNext()) {
+			T event = events.next();
+			if (event == null) {
+				postRun(run);
+				throw new NullPointerException("Null event can not be posted.");
+			}
+			if (event.getClass() != runClass || run.size() == MAX_POST_ALL_RUN) {
+				postRun(run);
+				run.clear();
+				runClass = event.getClass();
+			}
+			run.add(event);
+		}
+		postRun(run);
+	}
+
+	/**
+	 * Dispatches consecutive events of the same class.
+	 */
+	private void postRun(List<Object> run) {
+		if (run.isEmpty())
+			return;
+		ListenerMethod[] subscribers = listenersRegistry.getSubscribers(run.get(0));
+		if (subscribers.length == 0)
+			return;
+		logger.trace("Dispatching {} events of {}", run.size(), run.get(0).getClass());
+		eventDispatcher.dispatchAll(run.toArray(), subscribers);
+	}
+
+	/**
+	 * Posts an event to the event bus and keeps it as the sticky event of its
+	 * concrete type, replacing the previous one. A listener registered later
+	 * receives the sticky events it subscribes to right on registration.
+	 *
+	 * A listener registered while a sticky event is being posted might receive
+	 * it twice.
+	 *
+	 * @param event the event to post.
+	 *
+	 * @exception NullPointerException if the event is null.
+	 */
+	public void postSticky(T event) {
+		if (event == null)
+			throw new NullPointerException("Null event can not be posted.");
+		stickyEvents.put(event);
+		post(event, false);
+	}
+
+	/**
+	 * Gets the sticky event of a concrete event type.
+	 *
+	 * @param eventType the concrete type of the event.
+	 * @return the latest sticky event of the type, or null if there is none.
+	 */
+	public <X extends T> X getSticky(Class<X> eventType) {
+		return stickyEvents.get(eventType);
+	}
+
+	/**
+	 * Removes the sticky event of a concrete event type.
+	 *
+	 * @param eventType the concrete type of the event.
+	 * @return the removed sticky event, or null if there was none.
+	 */
+	public <X extends T> X removeSticky(Class<X> eventType) {
+		return stickyEvents.remove(eventType);
+	}
+
+	/**
+	 * Removes all sticky events.
+	 */
+	public void clearStickyEvents() {
+		stickyEvents.clear();
+	}
+
+	/**
+	 * Sets the maximum number of event types for which a sticky event is kept.
+	 * Once exceeded, the sticky events of the types stored first are evicted.
+	 * By default the number is unbounded.
+	 *
+	 * @param maxStickyEvents the maximum number of sticky events.
+	 *
+	 * @exception IllegalArgumentException if the number is not positive.
+	 */
+	public void setMaxStickyEvents(int maxStickyEvents) {
+		stickyEvents.setMaxSize(maxStickyEvents);
+	}
+
+	/**
+	 * Sets a tag to the event bus for identification.
+	 *
+	 * @param tag the tag to set.
+	 */
+	public void setTag(String tag) {
+		this.tag = tag;
+	}
+
+	/**
+	 * Sets the maximum number of async subscribers of an event which are invoked
+	 * one after another by a single task of the executor service. The async
+	 * subscribers of a post are split into as many tasks as needed. Defaults to
+	 * 16.
+	 *
+	 * @param asyncChunkSize the maximum number of subscribers per task.
+	 *
+	 * @exception IllegalArgumentException if the size is not positive.
+	 */
+	public void setAsyncChunkSize(int asyncChunkSize) {
+		eventDispatcher.setAsyncChunkSize(asyncChunkSize);
+	}
+
+	/**
+	 * Bounds the number of events whose async deliveries are queued or running.
+	 * A post with async subscribers exceeding the limit is handled according to
+	 * the overflow policy. Ordered async subscribers keep their order under
+	 * {@link OverflowPolicy#CALLER_RUNS}, so their deliveries are queued
+	 * regardless of the limit. By default the async queue is unbounded.
+	 *
+	 * A subscriber posting to its own bus from an executor thread can deadlock
+	 * under {@link OverflowPolicy#BLOCK}, if all pending events wait for it.
+	 *
+	 * @param maxPendingEvents the maximum number of pending events.
+	 * @param overflowPolicy   the policy for posts exceeding the limit.
+	 *
+	 * @exception IllegalArgumentException if the number is not positive.
+	 */
+	public void setAsyncQueueLimit(int maxPendingEvents, OverflowPolicy overflowPolicy) {
+		eventDispatcher.setAsyncQueueLimit(maxPendingEvents, overflowPolicy);
+	}
+
+	/**
+	 * Bounds the total weight of the events whose async deliveries are queued or
+	 * running, as estimated by the weigher. A post exceeding the budget is handled
+	 * according to the overflow policy set via
+	 * {@link #setAsyncQueueLimit(int, OverflowPolicy)}, blocking the posting
+	 * thread by default. An event heavier than the whole budget is only admitted
+	 * into an empty queue.
+	 *
+	 * @param maxPendingWeight the maximum total weight of pending events.
+	 * @param weigher          the weigher of the posted events.
+	 *
+	 * @exception IllegalArgumentException if the budget is not positive.
+	 */
+	public void setAsyncQueueBudget(long maxPendingWeight, EventWeigher<? super T> weigher) {
+		eventDispatcher.setAsyncQueueBudget(maxPendingWeight, weigher);
+	}
+
+	/**
+	 * Gets a snapshot of the pending events and the overflow counters of the
+	 * async queue.
+	 *
+	 * @return the statistics of the async queue.
+	 */
+	public AsyncQueueStatistics getAsyncQueueStatistics() {
+		return eventDispatcher.getAsyncQueueStatistics();
+	}
+
+	/**
+	 * Sets the key extractor of an event type. It is used for the events of the
+	 * type and of its sub types, unless a sub type has an extractor of its own.
+	 *
+	 * @param eventType    the event type.
+	 * @param keyExtractor the key extractor of the events.
+	 * @see Subscribe#conflate()
+	 * @see #registerKeyed(Object, Class, Object)
+	 */
+	public <X extends T> void setKeyExtractor(Class<X> eventType, KeyExtractor<? super X> keyExtractor) {
+		listenersRegistry.keyExtractors.put(eventType, keyExtractor);
+	}
+
+	/**
+	 * Starts a daemon thread which removes weak referenced listeners as soon as
+	 * they are garbage collected. Without it, garbage collected listeners are
+	 * removed in small batches on subsequent posts.
+	 */
+	public void startWeakListenerReaper() {
+		listenersRegistry.startReaper("jbus-reaper" + (tag.length() > 0 ? "-" + tag : ""));
+	}
+
+	/**
+	 * Stops the weak listener reaper thread started via
+	 * {@link #startWeakListenerReaper()}.
+	 */
+	public void stopWeakListenerReaper() {
+		listenersRegistry.stopReaper();
+	}
+
+	/**
+	 * It registers a JVM shutdown hook for graceful shutdown of event bus. The
+	 * hook closes the event bus, waiting at most 5 seconds for the pending async
+	 * deliveries.
+	 *
+	 * @see #close(long, TimeUnit)
+	 */
+	public void addShutdownHook() {
+		eventDispatcher.addShutdownHook();
+	}
+
+	/**
+	 * Waits at most the given time until the event bus is quiescent, i.e. no
+	 * event is being posted and no async delivery is pending, including the
+	 * events of incomplete batches. It must not be called from a subscriber
+	 * method, whose own delivery would keep the bus busy.
+	 *
+	 * @param timeout the maximum time to wait.
+	 * @param unit    the unit of the timeout.
+	 * @return true if the event bus is quiescent, false if the wait timed out.
+	 *
+	 * @exception InterruptedException if the calling thread is interrupted while
+	 *                                 waiting.
+	 * @since 1.2
+	 */
+	public boolean awaitQuiescence(long timeout, TimeUnit unit) throws InterruptedException {
+		return eventDispatcher.awaitQuiescence(timeout, Utils.requireNonNull(unit));
+	}
+
+	/**
+	 * Closes the event bus. It stops accepting posts, delivers the pending
+	 * batches, and waits at most the given time for the pending async
+	 * deliveries. Then the executor service is shut down, and the deliveries
+	 * still running once the deadline has passed are interrupted.
+	 *
+	 * @param timeout the maximum time to wait for the pending deliveries.
+	 * @param unit    the unit of the timeout.
+	 * @return the report of what has been drained, rejected and dropped.
+	 *
+	 * @exception InterruptedException if the calling thread is interrupted while
+	 *                                 waiting.
+	 * @since 1.2
+	 */
+	public CloseReport close(long timeout, TimeUnit unit) throws InterruptedException {
+		return eventDispatcher.close(timeout, Utils.requireNonNull(unit));
+	}
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+/**
+ * Extracts the key of an event, e.g. the id of the entity it updates.
+ *
+ * @param <X> the type of the events.
+ * @since 1.2
+ * @see JBus#setKeyExtractor(Class, KeyExtractor)
+ */
+public interface KeyExtractor<X> {
+    /**
+     * Gets the key of an event. Keys are compared via {@code equals}, and a
+     * {@code null} key is a valid key of its own.
+     *
+     * @param event the event.
+     * @return the key of the event.
+     * */
+    Object getKey(X event);
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The key extractors of an event bus, by event type. The extractor of an event
+ * is the one registered for the nearest type of its class hierarchy.
+ *
+ * @since 1.2
+ */
+class KeyExtractors {
+	// an event class without any extractor, as a concurrent map can not hold null
+	private static final KeyExtractor<Object> NONE = new KeyExtractor<Object>() {
+		@Override
+		public Object getKey(Object event) {
+			return null;
+		}
+	};
+
+	private final Map<Class<?>, KeyExtractor<Object>> extractors = new ConcurrentHashMap<Class<?>, KeyExtractor<Object>>();
+	// extractor of a concrete event class, resolved on first use
+	private final Map<Class<?>, KeyExtractor<Object>> resolved = new ConcurrentHashMap<Class<?>, KeyExtractor<Object>>();
+
+	@SuppressWarnings("unchecked")
+	synchronized void put(Class<?> eventType, KeyExtractor<?> keyExtractor) {
+		Utils.requireNonNull(eventType);
+		Utils.requireNonNull(keyExtractor);
+		extractors.put(eventType, (KeyExtractor<Object>) keyExtractor);
+		resolved.clear();
+	}
+
+	/**
+	 * Gets the key of an event, {@code null} if there is no extractor for it.
+	 */
+	Object getKey(Object event) {
+		KeyExtractor<Object> keyExtractor = resolved.get(event.getClass());
+		if (keyExtractor == null)
+			keyExtractor = resolve(event.getClass());
+		return keyExtractor.getKey(event);
+	}
+
+	private synchronized KeyExtractor<Object> resolve(Class<?> eventClass) {
+		KeyExtractor<Object> keyExtractor = NONE;
+		// the hierarchy lists the class first, then its super classes and interfaces
+		for (Class<?> type : ReflectionUtil.getTypeHierarchy(eventClass)) {
+			KeyExtractor<Object> candidate = extractors.get(type);
+			if (candidate != null) {
+				keyExtractor = candidate;
+				break;
+			}
+		}
+		resolved.put(eventClass, keyExtractor);
+		return keyExtractor;
+	}
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A class to hold all information of a subscriber method. Instances are
+ * compared by identity, as the registry creates exactly one instance per
+ * subscriber method of a registered listener.
+ *
+ * @since 1.0
+ * @author Anindya Chatterjee.
+ */
+class ListenerMethod {
+	static final ListenerMethod[] EMPTY = new ListenerMethod[0];
+
+	private static final Method LISTENER_ACCEPT_METHOD;
+	private static final Method BATCH_LISTENER_ACCEPT_METHOD;
+	static {
+		try {
+			LISTENER_ACCEPT_METHOD = Listener.class.getDeclaredMethod("accept", Object.class);
+			BATCH_LISTENER_ACCEPT_METHOD = BatchListener.class.getDeclaredMethod("accept", List.class);
+		} catch (NoSuchMethodException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	// invokes the accept method of a Listener, without reflection
+	private static final SubscriberInvoker LISTENER_INVOKER = new SubscriberInvoker() {
+		@Override
+		@SuppressWarnings("unchecked")
+		public void invoke(Object listener, Object event) {
+			((Listener<Object>) listener).accept(event);
+		}
+	};
+
+	// invokes the accept method of a BatchListener with a batch, without reflection
+	private static final SubscriberInvoker BATCH_LISTENER_INVOKER = new SubscriberInvoker() {
+		@Override
+		@SuppressWarnings("unchecked")
+		public void invoke(Object listener, Object events) {
+			((BatchListener<Object>) listener).accept((List<Object>) events);
+		}
+	};
+
+	// orders subscribers by descending priority. used with a stable sort, so that
+	// subscribers of the same priority keep their registration order.
+	static final Comparator<ListenerMethod> PRIORITY_ORDER = new Comparator<ListenerMethod>() {
+		@Override
+		public int compare(ListenerMethod lm1, ListenerMethod lm2) {
+			return lm1.priority < lm2.priority ? 1 : lm1.priority == lm2.priority ? 0 : -1;
+		}
+	};
+
+	public static ListenerMethod create(Method method, Class<?> eventType, boolean async) {
+		Utils.requireNonNull(method);
+		Utils.requireNonNull(eventType);
+		ListenerMethod lm = new ListenerMethod(method.getDeclaringClass(), method.getName(), method, eventType);
+		lm.invoker = Invokers.create(method);
+		// reflection needs access to the method and its declaring class
+		if (lm.invoker == null && (!Modifier.isPublic(method.getModifiers())
+				|| !Modifier.isPublic(method.getDeclaringClass().getModifiers())))
+			method.setAccessible(true);
+		lm.async = async;
+		return lm;
+	}
+
+	/**
+	 * Creates a subscriber method from compile time information, which will be
+	 * invoked via its generated invoker instead of reflection.
+	 */
+	static ListenerMethod create(IndexedSubscriber subscriber, boolean async) {
+		Utils.requireNonNull(subscriber.getInvoker());
+		ListenerMethod lm = new ListenerMethod(subscriber.getDeclaringClass(), subscriber.getMethodName(), null,
+				subscriber.getEventType());
+		lm.invoker = subscriber.getInvoker();
+		lm.async = async;
+		return lm;
+	}
+
+	/**
+	 * Creates the subscriber method for the accept method of a {@link Listener},
+	 * which does not need reflection to be invoked.
+	 */
+	static ListenerMethod forListener(Class<?> eventType, boolean async, int priority) {
+		Utils.requireNonNull(eventType);
+		ListenerMethod lm = new ListenerMethod(Listener.class, "accept", LISTENER_ACCEPT_METHOD, eventType);
+		lm.invoker = LISTENER_INVOKER;
+		lm.async = async;
+		lm.priority = priority;
+		return lm;
+	}
+
+	/**
+	 * Creates the subscriber method of a {@link Listener} whose accept method is
+	 * annotated with {@link Subscribe}, taking the attributes of the annotated
+	 * method. A priority given at registration overrides the annotated one.
+	 */
+	static ListenerMethod forListener(Class<?> eventType, ListenerMethod annotated, int priority) {
+		ListenerMethod lm = forListener(eventType, annotated.async, priority != 0 ? priority : annotated.priority);
+		lm.ordered = annotated.ordered;
+		lm.conflate = annotated.conflate;
+		lm.throttleNanos = annotated.throttleNanos;
+		lm.partitions = annotated.partitions;
+		// creates the mailbox or lanes of a queued subscriber
+		return lm.copy();
+	}
+
+	/**
+	 * Creates the subscriber method of a {@link BatchListener}.
+	 */
+	static ListenerMethod forBatchListener(Class<?> eventType, int batchSize, long batchLingerNanos) {
+		Utils.requireNonNull(eventType);
+		ListenerMethod lm = new ListenerMethod(BatchListener.class, "accept", BATCH_LISTENER_ACCEPT_METHOD,
+				eventType);
+		lm.invoker = BATCH_LISTENER_INVOKER;
+		lm.async = true;
+		lm.batchSize = batchSize;
+		lm.batchLingerNanos = batchLingerNanos;
+		lm.batch = new Batch(batchSize, batchLingerNanos);
+		lm.mailbox = new Mailbox();
+		return lm;
+	}
+
+	Object target;
+	WeakReference<?> weakListener;
+	ListenersRegistry.Registration registration;
+
+	Class<?> declaringClass;
+	String methodName;
+	// null for an indexed subscriber until it is resolved, see getMethod()
+	Method method;
+	// generated invoker of the subscriber, null if invoked via reflection
+	SubscriberInvoker invoker;
+	Class<?> eventType;
+
+	boolean async;
+	// only effective for an async subscriber, see Subscribe#ordered()
+	boolean ordered;
+	// higher priority subscribers come first in a resolved handler chain
+	int priority;
+	// only effective for an async subscriber, see Subscribe#conflate()
+	boolean conflate;
+	long throttleNanos;
+	// only effective for an async subscriber, see Subscribe#partitions()
+	int partitions;
+	// a batch subscriber is invoked with a list of events, see Subscribe#batchSize()
+	int batchSize;
+	long batchLingerNanos;
+	// pending events of a batch subscriber, created per listener instance
+	Batch batch;
+	boolean holdWeakReference;
+	// queued events of an ordered or conflating async subscriber, created per
+	// listener instance
+	Mailbox mailbox;
+	// lanes of a partitioned async subscriber, created per listener instance
+	Mailbox[] lanes;
+	// only events of this key are received, null to receive all events
+	Object key;
+	// pattern of the topics whose published events are received, null for the
+	// events routed by their class
+	String topic;
+	// keeps the metadata of the listener class alive while the subscriber is
+	// registered, see ClassMetadata
+	Object classMetadata;
+
+	private ListenerMethod(Class<?> declaringClass, String methodName, Method method, Class<?> eventType) {
+		this.declaringClass = declaringClass;
+		this.methodName = methodName;
+		this.method = method;
+		this.eventType = eventType;
+	}
+
+	/**
+	 * Creates a copy of the subscriber method information, without any listener
+	 * reference, for a new listener instance.
+	 */
+	ListenerMethod copy() {
+		ListenerMethod lm = new ListenerMethod(declaringClass, methodName, method, eventType);
+		lm.invoker = invoker;
+		lm.async = async;
+		lm.ordered = ordered;
+		lm.priority = priority;
+		lm.conflate = conflate;
+		lm.throttleNanos = throttleNanos;
+		lm.partitions = partitions;
+		lm.batchSize = batchSize;
+		lm.batchLingerNanos = batchLingerNanos;
+		if (batchSize > 0) {
+			lm.batch = new Batch(batchSize, batchLingerNanos);
+			lm.mailbox = new Mailbox();
+		} else if (async && conflate)
+			lm.mailbox = new ConflatingMailbox(throttleNanos);
+		else if (async && partitions > 0) {
+			lm.lanes = new Mailbox[partitions];
+			for (int i = 0; i < partitions; i++)
+				lm.lanes[i] = new Mailbox();
+		} else if (async && ordered)
+			lm.mailbox = new Mailbox();
+		return lm;
+	}
+
+	/**
+	 * Checks if the events of the subscriber are queued into its mailbox or
+	 * lanes, instead of being handed over to the executor service directly.
+	 */
+	boolean isQueued() {
+		return mailbox != null || lanes != null;
+	}
+
+	/**
+	 * Gets the reflective representation of the subscriber method. For an indexed
+	 * subscriber it is only looked up on demand, e.g. to report an error.
+	 */
+	Method getMethod() {
+		if (method == null) {
+			try {
+				method = declaringClass.getDeclaredMethod(methodName, eventType);
+			} catch (NoSuchMethodException e) {
+				return null;
+			}
+		}
+		return method;
+	}
+
+	@Override
+	public String toString() {
+		return "[" + "method = " + methodName + ", async = " + async + ", weak = " + holdWeakReference
+				+ ", target = " + (holdWeakReference ? weakListener.get() : target) + ", event = " + eventType.getName()
+				+ "]";
+	}
+}
@@ -0,0 +1,623 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A class to hold the records of listeners registered to the event bus runtime.
+ *
+ * @since 1.0
+ * @author Anindya Chatterjee.
+ */
+class ListenersRegistry<T> {
+	private static final Class<?> THIS_CLASS = new Object() {
+	}.getClass().getEnclosingClass();
+	private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(THIS_CLASS);
+
+	// keep track of event and its registered subscribed methods, guarded by the lock
+	private final Map<Class<?>, Set<ListenerMethod>> registry = new HashMap<Class<?>, Set<ListenerMethod>>();
+	// subscribed methods registered for the events of a single key, by event type
+	// and key. guarded by the lock
+	private final Map<Class<?>, Map<Object, Set<ListenerMethod>>> keyedRegistry = new HashMap<Class<?>, Map<Object, Set<ListenerMethod>>>();
+	// resolved subscribers of a concrete event class, including the subscribers of
+	// its whole super class and interface closure. built on first post of the class.
+	private final Map<Class<?>, Resolution> dispatchTable = new ConcurrentHashMap<Class<?>, Resolution>();
+	// extract the keys of the events, to match them with keyed subscriptions
+	final KeyExtractors keyExtractors = new KeyExtractors();
+	// subscribed methods registered for a topic pattern, guarded by the lock
+	private final TopicTrie topics = new TopicTrie();
+	// registrations of all strong referenced listener object, guarded by the lock
+	private final Map<Object, Registration> subscriberCache = new HashMap<Object, Registration>();
+	// registrations of all weak referenced listener object, guarded by the lock
+	private final Map<Object, Registration> weakSubscriberCache = new WeakHashMap<Object, Registration>();
+	// registrations of weak referenced listener by its weak reference, so that a
+	// reference polled from the reference queue can be reclaimed. guarded by the lock
+	private final Map<Reference<?>, Registration> weakRegistrations = new HashMap<Reference<?>, Registration>();
+	// weak references of garbage collected listeners are enqueued here by the GC
+	private final ReferenceQueue<Object> referenceQueue = new ReferenceQueue<Object>();
+	private volatile Thread reaper;
+	// discards the pending batches of cancelled batch subscribers
+	private volatile EventDispatcher<T> eventDispatcher;
+	private final Object lock = new Object();
+	private final Class<T> busEventType;
+
+	public ListenersRegistry(Class<T> busEventType) {
+		this.busEventType = Utils.requireNonNull(busEventType);
+	}
+
+	void setEventDispatcher(EventDispatcher<T> eventDispatcher) {
+		this.eventDispatcher = eventDispatcher;
+	}
+
+	/**
+	 * Registers an object in the listener registry. If weak is set, it will create
+	 * a weak reference of the listener object and register. Otherwise it will store
+	 * a strong reference of the listener object.
+	 *
+	 * @return the registration of the listener, which keeps track of all of its
+	 *         subscriber methods.
+	 */
+	Registration register(Object listener, boolean weak, boolean forceAsync, Class<? extends T> listenEventType) {
+		return register(listener, weak, forceAsync, listenEventType, 0);
+	}
+
+	/**
+	 * Registers an object in the listener registry. The priority only applies to
+	 * a {@link Listener}, the priority of a subscriber method is declared via
+	 * {@link Subscribe#priority()}.
+	 */
+	Registration register(Object listener, boolean weak, boolean forceAsync, Class<? extends T> listenEventType,
+			int listenerPriority) {
+		return register(listener, weak, forceAsync, listenEventType, listenerPriority, null, null);
+	}
+
+	/**
+	 * Registers an object in the listener registry. If a key is given, the
+	 * subscriber methods of the object only receive the events of that key, as
+	 * extracted by the key extractor of their type. If a topic pattern is given,
+	 * they only receive the events published to a matching topic.
+	 */
+	Registration register(Object listener, boolean weak, boolean forceAsync, Class<? extends T> listenEventType,
+			int listenerPriority, Object key, String topic) {
+		if (topic != null)
+			TopicTrie.validatePattern(topic);
+		// extract all subscribed methods from the listener and its super class and
+		// interfaces.
+		Class<? extends T> findEventType;
+		if (listenEventType != null && !listenEventType.equals(this.busEventType))
+			findEventType = listenEventType;
+		else
+			findEventType = this.busEventType;
+		List<ListenerMethod> subscribedMethods;
+		if (listener instanceof Listener) {
+			// a Listener is always invoked via its accept method, without
+			// reflection, along with any other subscriber method of its class.
+			subscribedMethods = ReflectionUtil.findListenerMethods(findEventType, listener, forceAsync,
+					listenerPriority);
+		} else {
+			subscribedMethods = ReflectionUtil.findSubscribeMethods(findEventType, listener, forceAsync);
+		}
+		if (subscribedMethods == null || subscribedMethods.isEmpty())
+			throw new JBusException(listener + " does not have any method marked with @Subscribe.");
+		for (ListenerMethod listenerMethod : subscribedMethods) {
+			listenerMethod.key = key;
+			listenerMethod.topic = topic;
+		}
+		return register(listener, weak, subscribedMethods);
+	}
+
+	/**
+	 * Registers an object along with its subscriber methods, which must be
+	 * created for this object only.
+	 */
+	Registration register(Object listener, boolean weak, List<ListenerMethod> subscribedMethods) {
+		// synchronize the search in the cache, to check if the listener has already
+		// been registered, along with the registry updates and dispatch table
+		// invalidation, so that a concurrent post never caches a stale resolution.
+		synchronized (lock) {
+			Registration registration;
+			if (weak) {
+				// if the weak is set, check if a weak reference of the object is
+				// kept in the cache or not.
+				if (isActive(weakSubscriberCache.get(listener)))
+					throw new JBusException(listener + " has already been registered.");
+				// create a weak reference of the object and add it to the cache,
+				// beyond this point we will not hold any strong reference of the object.
+				registration = new Registration(this, null, new WeakReference<Object>(listener, referenceQueue),
+						subscribedMethods);
+				weakSubscriberCache.put(listener, registration);
+				weakRegistrations.put(registration.weakListener, registration);
+				logger.trace("{} added to the weak subscriber cache.", listener);
+			} else {
+				if (isActive(subscriberCache.get(listener)))
+					// if listener is found in the strong referenced cache, throw
+					throw new JBusException(listener + " has already been registered.");
+				// add the object to the strong referenced cache
+				registration = new Registration(this, listener, null, subscribedMethods);
+				subscriberCache.put(listener, registration);
+				logger.trace("{} added to the subscriber cache.", listener);
+			}
+
+			for (ListenerMethod listenerMethod : subscribedMethods) {
+				if (weak) {
+					listenerMethod.weakListener = registration.weakListener;
+					listenerMethod.holdWeakReference = true;
+				} else {
+					listenerMethod.target = listener;
+					listenerMethod.holdWeakReference = false;
+				}
+				listenerMethod.registration = registration;
+
+				// overridden methods have already been filtered out while scanning
+				// the listener, so every method here is a distinct subscriber.
+				if (listenerMethod.topic != null) {
+					topics.add(listenerMethod);
+					logger.trace("{} has been registered for topic {}.", listenerMethod, listenerMethod.topic);
+					continue;
+				}
+				if (listenerMethod.key == null) {
+					add(registry, listenerMethod.eventType, listenerMethod);
+				} else {
+					Map<Object, Set<ListenerMethod>> keyed = keyedRegistry.get(listenerMethod.eventType);
+					if (keyed == null) {
+						keyed = new HashMap<Object, Set<ListenerMethod>>();
+						keyedRegistry.put(listenerMethod.eventType, keyed);
+					}
+					add(keyed, listenerMethod.key, listenerMethod);
+				}
+				logger.trace("{} has been registered.", listenerMethod);
+				updateDispatchTable(listenerMethod);
+			}
+			return registration;
+		}
+	}
+
+	/**
+	 * De-registers a listener object.
+	 */
+	void deregister(Object listener) {
+		synchronized (lock) {
+			// we need to check in both the caches, as we don't know how
+			// the listener object was registered. If it was a weak reference,
+			// there are chances, that underlying object has already been
+			// collected by GC, in which case the weak cache has already
+			// dropped it.
+			//
+			// But one catch here is that we will never know if we are trying
+			// to deregister an object which was never registered before, hence
+			// we can not throw such exception.
+			Registration weakRegistration = weakSubscriberCache.get(listener);
+			if (weakRegistration != null) {
+				cancel(weakRegistration);
+				logger.trace("{} removed from the weak subscriber reference cache.", listener);
+			}
+			Registration registration = subscriberCache.get(listener);
+			if (registration != null) {
+				cancel(registration);
+				logger.trace("{} removed from the subscriber cache.", listener);
+			}
+		}
+	}
+
+	/**
+	 * Get all registered subscriber information for an event. The subscribers are
+	 * resolved once per concrete event class and served from the dispatch table
+	 * afterwards, until a registration change invalidates the entry. If the class
+	 * has keyed subscriptions, the subscribers of the key of the event are merged
+	 * into the subscribers without a key, so that subscribers of other keys are
+	 * never visited. The returned array must not be modified.
+	 */
+	ListenerMethod[] getSubscribers(Object event) {
+		if (event == null)
+			return ListenerMethod.EMPTY;
+		Resolution resolution = dispatchTable.get(event.getClass());
+		if (resolution == null)
+			resolution = resolveSubscribers(event.getClass());
+		if (resolution.keyed.isEmpty())
+			return resolution.subscribers;
+		Object key = keyExtractors.getKey(event);
+		ListenerMethod[] keyed = key == null ? null : resolution.keyed.get(key);
+		return keyed == null ? resolution.subscribers : merge(resolution.subscribers, keyed);
+	}
+
+	/**
+	 * Merges two arrays of subscribers sorted by priority. The subscribers without
+	 * a key come first within a priority.
+	 */
+	private static ListenerMethod[] merge(ListenerMethod[] subscribers, ListenerMethod[] keyed) {
+		if (subscribers.length == 0)
+			return keyed;
+		ListenerMethod[] merged = new ListenerMethod[subscribers.length + keyed.length];
+		int i = 0, j = 0, k = 0;
+		while (i < subscribers.length && j < keyed.length) {
+			if (ListenerMethod.PRIORITY_ORDER.compare(keyed[j], subscribers[i]) < 0)
+				merged[k++] = keyed[j++];
+			else
+				merged[k++] = subscribers[i++];
+		}
+		while (i < subscribers.length)
+			merged[k++] = subscribers[i++];
+		while (j < keyed.length)
+			merged[k++] = keyed[j++];
+		return merged;
+	}
+
+	/**
+	 * Resolves the subscribers of a concrete event class by looking up every type
+	 * of its class hierarchy in the registry, and caches the result in the dispatch
+	 * table. The subscribers are sorted by priority here, so that posting does not
+	 * pay for the order. The subscribers of each key of the keyed subscriptions
+	 * are kept apart from the subscribers without a key, which are shared by all
+	 * keys.
+	 */
+	private Resolution resolveSubscribers(Class<?> eventType) {
+		synchronized (lock) {
+			Resolution resolution = dispatchTable.get(eventType);
+			if (resolution != null)
+				return resolution;
+			List<ListenerMethod> results = new ArrayList<ListenerMethod>();
+			Map<Object, List<ListenerMethod>> keyedResults = null;
+			for (Class<?> type : ReflectionUtil.getTypeHierarchy(eventType)) {
+				Set<ListenerMethod> listenerMethods = registry.get(type);
+				if (listenerMethods != null)
+					results.addAll(listenerMethods);
+				Map<Object, Set<ListenerMethod>> keyed = keyedRegistry.get(type);
+				if (keyed == null)
+					continue;
+				if (keyedResults == null)
+					keyedResults = new HashMap<Object, List<ListenerMethod>>();
+				for (Map.Entry<Object, Set<ListenerMethod>> entry : keyed.entrySet()) {
+					List<ListenerMethod> keyResults = keyedResults.get(entry.getKey());
+					if (keyResults == null) {
+						keyResults = new ArrayList<ListenerMethod>();
+						keyedResults.put(entry.getKey(), keyResults);
+					}
+					keyResults.addAll(entry.getValue());
+				}
+			}
+			ListenerMethod[] subscribers = sort(results);
+			resolution = new Resolution(subscribers);
+			if (keyedResults != null) {
+				for (Map.Entry<Object, List<ListenerMethod>> entry : keyedResults.entrySet())
+					resolution.keyed.put(entry.getKey(), sort(entry.getValue()));
+			}
+			dispatchTable.put(eventType, resolution);
+			logger.trace("Resolved {} subscribers for {}", subscribers.length, eventType);
+			return resolution;
+		}
+	}
+
+	/**
+	 * Gets the subscribers of an event published to a topic, i.e. the subscribers
+	 * of the matching topic patterns which listen to events of its class. They are
+	 * resolved once per topic and event class. The returned array is shared and
+	 * must not be modified.
+	 */
+	ListenerMethod[] getSubscribers(String topic, Object event) {
+		ListenerMethod[] subscribers = topics.getCached(topic, event.getClass());
+		if (subscribers != null)
+			return subscribers;
+		synchronized (lock) {
+			return topics.resolve(topic, event.getClass());
+		}
+	}
+
+	private static ListenerMethod[] sort(List<ListenerMethod> results) {
+		// merge sort is stable, registration order is kept within a priority
+		Collections.sort(results, ListenerMethod.PRIORITY_ORDER);
+		return results.isEmpty() ? ListenerMethod.EMPTY : results.toArray(new ListenerMethod[results.size()]);
+	}
+
+	/**
+	 * Gets the subscriber methods of all registered batch subscribers.
+	 */
+	List<ListenerMethod> getBatchSubscribers() {
+		List<ListenerMethod> batchSubscribers = new ArrayList<ListenerMethod>();
+		synchronized (lock) {
+			for (Set<ListenerMethod> listenerMethods : registry.values())
+				addBatchSubscribers(listenerMethods, batchSubscribers);
+			for (Map<Object, Set<ListenerMethod>> keyed : keyedRegistry.values()) {
+				for (Set<ListenerMethod> listenerMethods : keyed.values())
+					addBatchSubscribers(listenerMethods, batchSubscribers);
+			}
+			Set<ListenerMethod> topicSubscribers = new LinkedHashSet<ListenerMethod>();
+			topics.collect(topicSubscribers);
+			addBatchSubscribers(topicSubscribers, batchSubscribers);
+		}
+		return batchSubscribers;
+	}
+
+	private static void addBatchSubscribers(Set<ListenerMethod> listenerMethods,
+			List<ListenerMethod> batchSubscribers) {
+		for (ListenerMethod listenerMethod : listenerMethods) {
+			if (listenerMethod.batch != null)
+				batchSubscribers.add(listenerMethod);
+		}
+	}
+
+	/**
+	 * Updates the resolved dispatch entries after a subscriber method has been
+	 * added or removed. A keyed subscriber only changes the subscribers of its key,
+	 * any other subscriber invalidates the entries. Must be called while holding
+	 * the lock.
+	 */
+	private void updateDispatchTable(ListenerMethod listenerMethod) {
+		if (listenerMethod.key == null) {
+			invalidateDispatchTable(listenerMethod.eventType);
+			return;
+		}
+		for (Map.Entry<Class<?>, Resolution> entry : dispatchTable.entrySet()) {
+			if (!listenerMethod.eventType.isAssignableFrom(entry.getKey()))
+				continue;
+			List<ListenerMethod> results = new ArrayList<ListenerMethod>();
+			for (Class<?> type : ReflectionUtil.getTypeHierarchy(entry.getKey())) {
+				Map<Object, Set<ListenerMethod>> keyed = keyedRegistry.get(type);
+				Set<ListenerMethod> listenerMethods = keyed == null ? null : keyed.get(listenerMethod.key);
+				if (listenerMethods != null)
+					results.addAll(listenerMethods);
+			}
+			if (results.isEmpty())
+				entry.getValue().keyed.remove(listenerMethod.key);
+			else
+				entry.getValue().keyed.put(listenerMethod.key, sort(results));
+		}
+	}
+
+	/**
+	 * Removes every resolved dispatch entry which includes the subscribers of
+	 * {@code eventType}. Must be called while holding the lock.
+	 */
+	private void invalidateDispatchTable(Class<?> eventType) {
+		Iterator<Class<?>> iterator = dispatchTable.keySet().iterator();
+		while (iterator.hasNext()) {
+			if (eventType.isAssignableFrom(iterator.next()))
+				iterator.remove();
+		}
+	}
+
+	/**
+	 * Reclaims the registrations of garbage collected weak listeners. It drains at
+	 * most {@code maxReclaims} references from the reference queue, so that the
+	 * cost on a posting thread is bounded. Each reclamation only touches the
+	 * subscriber methods of the collected listener.
+	 *
+	 * @return the number of reclaimed listeners.
+	 */
+	int reclaimWeakListeners(int maxReclaims) {
+		int reclaimed = 0;
+		Reference<?> reference;
+		// poll does not lock when the queue is empty, which is the common case.
+		while (reclaimed < maxReclaims && (reference = referenceQueue.poll()) != null) {
+			reclaim(reference);
+			reclaimed++;
+		}
+		return reclaimed;
+	}
+
+	private void reclaim(Reference<?> reference) {
+		synchronized (lock) {
+			Registration registration = weakRegistrations.get(reference);
+			if (registration != null) {
+				logger.trace("Reclaiming {} as the listener has been garbage collected.", reference);
+				cancel(registration);
+			}
+		}
+	}
+
+	/**
+	 * Starts a daemon thread which reclaims garbage collected weak listeners as
+	 * soon as they are enqueued, instead of on the next post.
+	 */
+	void startReaper(String name) {
+		synchronized (lock) {
+			if (reaper != null)
+				return;
+			reaper = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						while (!Thread.currentThread().isInterrupted()) {
+							reclaim(referenceQueue.remove());
+						}
+					} catch (InterruptedException e) {
+						logger.debug("Weak listener reaper has been stopped.");
+					}
+				}
+			}, name);
+			reaper.setDaemon(true);
+			reaper.start();
+		}
+	}
+
+	/**
+	 * Stops the weak listener reaper thread, if started.
+	 */
+	void stopReaper() {
+		synchronized (lock) {
+			if (reaper != null) {
+				reaper.interrupt();
+				reaper = null;
+			}
+		}
+	}
+
+	/**
+	 * Removes a weak referenced listener from the bus runtime, once its underlying
+	 * object has been found cleared during dispatch.
+	 */
+	void removeWeakListener(ListenerMethod listenerMethod) {
+		// the weak cache drops the entry of a garbage collected listener by itself,
+		// the registration knows the rest of the subscriber methods to clean up.
+		if (listenerMethod.registration != null)
+			listenerMethod.registration.cancel();
+	}
+
+	/**
+	 * Cancels a registration. Only the subscriber methods of the registration are
+	 * touched, without scanning the rest of the registry.
+	 */
+	private void cancel(Registration registration) {
+		synchronized (lock) {
+			if (registration.cancelled)
+				return;
+			registration.cancelled = true;
+
+			if (registration.weakListener != null)
+				weakRegistrations.remove(registration.weakListener);
+			Object listener = registration.weakListener != null ? registration.weakListener.get()
+					: registration.listener;
+			if (listener != null) {
+				Map<Object, Registration> cache = registration.weakListener != null ? weakSubscriberCache
+						: subscriberCache;
+				if (cache.get(listener) == registration)
+					cache.remove(listener);
+			}
+
+			for (ListenerMethod listenerMethod : registration.listenerMethods) {
+				// the events of a pending batch are counted as in flight, and no
+				// flush finds the subscriber anymore
+				if (listenerMethod.batch != null && eventDispatcher != null)
+					eventDispatcher.discardBatch(listenerMethod);
+				boolean removed;
+				if (listenerMethod.topic != null) {
+					// the topic cache is cleared by the trie itself
+					if (topics.remove(listenerMethod))
+						logger.trace("{} has been un-registered.", listenerMethod);
+					continue;
+				}
+				if (listenerMethod.key == null) {
+					removed = remove(registry, listenerMethod.eventType, listenerMethod);
+				} else {
+					Map<Object, Set<ListenerMethod>> keyed = keyedRegistry.get(listenerMethod.eventType);
+					removed = keyed != null && remove(keyed, listenerMethod.key, listenerMethod);
+					if (removed && keyed.isEmpty())
+						keyedRegistry.remove(listenerMethod.eventType);
+				}
+				if (removed) {
+					updateDispatchTable(listenerMethod);
+					logger.trace("{} has been un-registered.", listenerMethod);
+				}
+			}
+		}
+	}
+
+	private static <K> void add(Map<K, Set<ListenerMethod>> index, K indexKey, ListenerMethod listenerMethod) {
+		Set<ListenerMethod> listenerMethods = index.get(indexKey);
+		if (listenerMethods == null) {
+			listenerMethods = new LinkedHashSet<ListenerMethod>();
+			index.put(indexKey, listenerMethods);
+		}
+		listenerMethods.add(listenerMethod);
+	}
+
+	private static <K> boolean remove(Map<K, Set<ListenerMethod>> index, K indexKey,
+			ListenerMethod listenerMethod) {
+		Set<ListenerMethod> listenerMethods = index.get(indexKey);
+		if (listenerMethods == null || !listenerMethods.remove(listenerMethod))
+			return false;
+		if (listenerMethods.isEmpty())
+			index.remove(indexKey);
+		return true;
+	}
+
+	private static boolean isActive(Registration registration) {
+		return registration != null && !registration.cancelled;
+	}
+
+	/**
+	 * Registration of a listener object. It works as a reverse index from the
+	 * listener to its subscriber methods.
+	 */
+	static final class Registration implements Subscription {
+		private final ListenersRegistry<?> listenersRegistry;
+		private final Object listener;
+		private final WeakReference<Object> weakListener;
+		private final List<ListenerMethod> listenerMethods;
+		// guarded by the registry lock
+		private boolean cancelled;
+
+		Registration(ListenersRegistry<?> listenersRegistry, Object listener, WeakReference<Object> weakListener,
+				List<ListenerMethod> listenerMethods) {
+			this.listenersRegistry = listenersRegistry;
+			this.listener = listener;
+			this.weakListener = weakListener;
+			this.listenerMethods = listenerMethods;
+		}
+
+		@Override
+		public void cancel() {
+			listenersRegistry.cancel(this);
+		}
+
+		@Override
+		public boolean isCancelled() {
+			synchronized (listenersRegistry.lock) {
+				return cancelled;
+			}
+		}
+
+		/**
+		 * Gets the subscriber methods of this registration which listen to the
+		 * event, i.e. to events of its concrete type and of its key.
+		 */
+		ListenerMethod[] getSubscribers(Object event) {
+			if (isCancelled())
+				return ListenerMethod.EMPTY;
+			Class<?> eventClass = event.getClass();
+			List<ListenerMethod> subscribers = new ArrayList<ListenerMethod>(listenerMethods.size());
+			for (ListenerMethod listenerMethod : listenerMethods) {
+				if (listenerMethod.eventType.isAssignableFrom(eventClass) && (listenerMethod.key == null
+						|| listenerMethod.key.equals(listenersRegistry.keyExtractors.getKey(event))))
+					subscribers.add(listenerMethod);
+			}
+			Collections.sort(subscribers, ListenerMethod.PRIORITY_ORDER);
+			return subscribers.isEmpty() ? ListenerMethod.EMPTY
+					: subscribers.toArray(new ListenerMethod[subscribers.size()]);
+		}
+	}
+
+	/**
+	 * Resolved subscribers of a concrete event class.
+	 */
+	private static final class Resolution {
+		final ListenerMethod[] subscribers;
+		// subscribers of each key which has keyed subscriptions, without the
+		// subscribers without a key. Updated per key while holding the lock.
+		final Map<Object, ListenerMethod[]> keyed = new ConcurrentHashMap<Object, ListenerMethod[]>();
+
+		Resolution(ListenerMethod[] subscribers) {
+			this.subscribers = subscribers;
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A serial mailbox of an ordered async subscriber. Events are queued in the
+ * order they have been posted, and at most one executor task drains the
+ * mailbox at any time.
+ *
+ * @since 1.2
+ */
+class Mailbox {
+	private final Queue<Object> events = new ConcurrentLinkedQueue<Object>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	/**
+	 * Queues an event, or the ticket of an event admitted into a bounded async
+	 * queue.
+	 *
+	 * @return true if the caller has to schedule a task draining the mailbox.
+	 */
+	boolean offer(Object event) {
+		events.offer(event);
+		return schedule();
+	}
+
+	/**
+	 * Marks the mailbox as scheduled, after an event has been queued.
+	 *
+	 * @return true if the caller has to schedule a task draining the mailbox.
+	 */
+	boolean schedule() {
+		return scheduled.compareAndSet(false, true);
+	}
+
+	Object poll() {
+		return events.poll();
+	}
+
+	boolean isEmpty() {
+		return events.isEmpty();
+	}
+
+	/**
+	 * Starts a drain.
+	 *
+	 * @return the maximum number of events the drain delivers.
+	 */
+	int startDrain(int maxDrain) {
+		return maxDrain;
+	}
+
+	/**
+	 * Gets the time to wait before the next drain may deliver, in nanoseconds.
+	 */
+	long delayNanos() {
+		return 0;
+	}
+
+	/**
+	 * Marks the end of a drain.
+	 *
+	 * @return true if events have been queued meanwhile, and the caller has to
+	 *         schedule the mailbox again.
+	 */
+	boolean release() {
+		scheduled.set(false);
+		return !isEmpty() && scheduled.compareAndSet(false, true);
+	}
+}
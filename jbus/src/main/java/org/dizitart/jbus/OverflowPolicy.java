@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+/**
+ * Policies applied when an event is posted while the async queue of a
+ * {@link JBus} is full.
+ *
+ * @since 1.2
+ * @see JBus#setAsyncQueueLimit(int, OverflowPolicy)
+ */
+public enum OverflowPolicy {
+    /**
+     * Blocks the posting thread until the queue has room for the event.
+     */
+    BLOCK,
+    /**
+     * Invokes the unordered async subscribers of the event in the posting
+     * thread.
+     */
+    CALLER_RUNS,
+    /**
+     * Drops the async deliveries of the posted event.
+     */
+    DROP_NEWEST,
+    /**
+     * Drops the async deliveries of the oldest queued events whose delivery has
+     * not started yet, to make room for the posted event. If there is none, the
+     * posted event is dropped.
+     */
+    DROP_OLDEST,
+    /**
+     * Throws a {@link JBusException} to the posting thread, before any
+     * subscriber of the event is invoked.
+     */
+    FAIL
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The completion handle of an event posted via {@link JBus#postAsync(Object)}.
+ * It completes once every synchronous and asynchronous subscriber of the event
+ * has been invoked, and collects the errors thrown by the subscriber methods.
+ * <p>
+ * Deliveries dropped by a bounded async queue or replaced by a later event of a
+ * conflating subscriber count as finished, {@link #isDropped()} tells if any
+ * delivery has been skipped. A batch subscriber counts as finished once the
+ * event is added to its current batch. A post can not be cancelled.
+ *
+ * @since 1.2
+ */
+public final class PostCompletion implements Future<Void> {
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private final List<Throwable> errors = new ArrayList<Throwable>();
+    // run once completed, null afterwards
+    private List<Runnable> callbacks = new ArrayList<Runnable>();
+    private volatile boolean dropped;
+
+    PostCompletion() {
+    }
+
+    void addError(Throwable error) {
+        synchronized (errors) {
+            errors.add(error);
+        }
+    }
+
+    void markDropped() {
+        dropped = true;
+    }
+
+    void complete() {
+        List<Runnable> toRun;
+        synchronized (this) {
+            if (callbacks == null)
+                return;
+            toRun = callbacks;
+            callbacks = null;
+            latch.countDown();
+        }
+        for (Runnable callback : toRun)
+            callback.run();
+    }
+
+    /**
+     * Runs the callback once the post is completed, right away if it is completed
+     * already. The callback runs in the thread completing the post, which is
+     * either the posting thread or an executor thread.
+     *
+     * @param callback the callback to run.
+     *
+     * @exception NullPointerException if the callback is null.
+     */
+    public void onComplete(Runnable callback) {
+        Utils.requireNonNull(callback);
+        synchronized (this) {
+            if (callbacks != null) {
+                callbacks.add(callback);
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    /**
+     * Gets the errors thrown by the subscriber methods so far.
+     */
+    public List<Throwable> getErrors() {
+        synchronized (errors) {
+            return Collections.unmodifiableList(new ArrayList<Throwable>(errors));
+        }
+    }
+
+    /**
+     * Checks if any delivery of the event has been skipped, due to an overflow of
+     * the async queue or to a conflating subscriber.
+     */
+    public boolean isDropped() {
+        return dropped;
+    }
+
+    /**
+     * A post can not be cancelled, always returns false.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return false;
+    }
+
+    @Override
+    public boolean isDone() {
+        return latch.getCount() == 0;
+    }
+
+    /**
+     * Waits until every subscriber of the event has been invoked.
+     *
+     * @exception ExecutionException   if any subscriber method has thrown an
+     *                                 exception. Its cause is a
+     *                                 {@link JBusException} caused by the first
+     *                                 error, see {@link #getErrors()} for all of
+     *                                 them.
+     * @exception InterruptedException if the waiting thread is interrupted.
+     */
+    @Override
+    public Void get() throws InterruptedException, ExecutionException {
+        latch.await();
+        return result();
+    }
+
+    /**
+     * Waits at most the given time until every subscriber of the event has been
+     * invoked.
+     *
+     * @exception ExecutionException   if any subscriber method has thrown an
+     *                                 exception.
+     * @exception InterruptedException if the waiting thread is interrupted.
+     * @exception TimeoutException     if the wait timed out.
+     */
+    @Override
+    public Void get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!latch.await(timeout, unit))
+            throw new TimeoutException("Post has not completed in " + timeout + " " + unit);
+        return result();
+    }
+
+    private Void result() throws ExecutionException {
+        JBusException error = getError();
+        if (error != null)
+            throw new ExecutionException(error);
+        return null;
+    }
+
+    /**
+     * Gets the aggregated errors of the subscribers, null if there is none.
+     */
+    JBusException getError() {
+        synchronized (errors) {
+            if (errors.isEmpty())
+                return null;
+            return new JBusException(errors.size() + " subscriber(s) failed", errors.get(0));
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A reflection utility class to extract information about subscriber methods
+ * from a registering listener object.
+ *
+ * @since 1.0
+ * @author Anindya Chatterjee.
+ */
+class ReflectionUtil {
+
+	/**
+	 * Finds all subscriber methods of a listener object. The class hierarchy of the
+	 * listener is scanned only once per listener class, event type and execution
+	 * mode, afterwards the cached metadata is copied for the listener instance.
+	 */
+	static List<ListenerMethod> findSubscribeMethods(Class<?> findEventType, Object listener, boolean forceAsync) {
+		if (listener == null)
+			return Collections.emptyList();
+		Map<Object, Object> metadata = ClassMetadata.get(listener.getClass());
+		ListenerMethod[] prototypes = getSubscribeMethods(findEventType, listener.getClass(), forceAsync, metadata);
+		List<ListenerMethod> listenerMethods = new ArrayList<ListenerMethod>(prototypes.length);
+		for (ListenerMethod prototype : prototypes) {
+			ListenerMethod listenerMethod = prototype.copy();
+			listenerMethod.classMetadata = metadata;
+			listenerMethods.add(listenerMethod);
+		}
+		return Collections.unmodifiableList(listenerMethods);
+	}
+
+	/**
+	 * Finds all subscriber methods of a {@link Listener}. Its accept method is
+	 * always a subscriber, invoked without reflection, and takes the attributes of
+	 * its {@link Subscribe} annotation if there is one. The other subscriber methods
+	 * of the class are registered along with it, they must listen to the events the
+	 * listener is registered for. The class is scanned only once, like any other
+	 * listener class.
+	 */
+	static List<ListenerMethod> findListenerMethods(Class<?> findEventType, Object listener, boolean forceAsync,
+			int priority) {
+		Map<Object, Object> metadata = ClassMetadata.get(listener.getClass());
+		ListenerMethod[] prototypes = getSubscribeMethods(Object.class, listener.getClass(), forceAsync, metadata);
+		if (prototypes.length == 0)
+			return Collections.singletonList(ListenerMethod.forListener(findEventType, forceAsync, priority));
+
+		ListenerMethod accept = null;
+		List<ListenerMethod> listenerMethods = new ArrayList<ListenerMethod>(prototypes.length + 1);
+		for (ListenerMethod prototype : prototypes) {
+			if (isListenerAccept(prototype)) {
+				// the most specific declaration comes first
+				if (accept == null)
+					accept = ListenerMethod.forListener(findEventType, prototype, priority);
+				continue;
+			}
+			if (!findEventType.isAssignableFrom(prototype.eventType))
+				throw new JBusException(prototype + " is subscribe enabled, but its listener is registered for "
+						+ findEventType.getName() + " only.");
+			ListenerMethod listenerMethod = prototype.copy();
+			listenerMethod.classMetadata = metadata;
+			listenerMethods.add(listenerMethod);
+		}
+		listenerMethods.add(0, accept != null ? accept
+				: ListenerMethod.forListener(findEventType, forceAsync, priority));
+		return Collections.unmodifiableList(listenerMethods);
+	}
+
+	private static boolean isListenerAccept(ListenerMethod listenerMethod) {
+		return "accept".equals(listenerMethod.methodName)
+				&& Listener.class.isAssignableFrom(listenerMethod.declaringClass);
+	}
+
+	/**
+	 * Gets the subscriber method prototypes of a listener class from its metadata,
+	 * per event type and execution mode, scanning the class hierarchy on a miss.
+	 */
+	private static ListenerMethod[] getSubscribeMethods(Class<?> findEventType, Class<?> listenerClass,
+			boolean forceAsync, Map<Object, Object> metadata) {
+		MetadataKey key = new MetadataKey(findEventType, forceAsync);
+		ListenerMethod[] prototypes = (ListenerMethod[]) metadata.get(key);
+		if (prototypes != null)
+			return prototypes;
+
+		// resolve outside the lock, at worst two threads resolve the same class at
+		// once. a subscriber index generated at compile time is consulted before
+		// scanning the class hierarchy.
+		List<ListenerMethod> listenerMethods = findIndexedMethods(findEventType, listenerClass, forceAsync);
+		if (listenerMethods == null)
+			listenerMethods = findSubscribeMethods(findEventType, listenerClass, forceAsync,
+					new HashSet<Class<?>>(), new HashSet<String>());
+		prototypes = listenerMethods == null || listenerMethods.isEmpty() ? ListenerMethod.EMPTY
+				: listenerMethods.toArray(new ListenerMethod[listenerMethods.size()]);
+		metadata.put(key, prototypes);
+		return prototypes;
+	}
+
+	/**
+	 * Finds the subscriber methods of a listener class from the subscriber
+	 * indexes.
+	 *
+	 * @return the subscriber methods, or null if the class has to be scanned via
+	 *         reflection.
+	 */
+	private static List<ListenerMethod> findIndexedMethods(Class<?> findEventType, Class<?> listenerClass,
+			boolean forceAsync) {
+		IndexedSubscriber[] subscribers = SubscriberIndexes.find(listenerClass);
+		if (subscribers == null)
+			return null;
+		List<ListenerMethod> listenerMethods = new ArrayList<ListenerMethod>(subscribers.length);
+		Set<String> signatureTracker = new HashSet<String>();
+		for (IndexedSubscriber subscriber : subscribers) {
+			// let the reflective scan report the mismatch
+			if (!findEventType.isAssignableFrom(subscriber.getEventType()))
+				return null;
+			boolean async = forceAsync || subscriber.isAsync();
+			ListenerMethod listenerMethod;
+			if (subscriber.getInvoker() != null) {
+				listenerMethod = ListenerMethod.create(subscriber, async);
+			} else {
+				// not accessible from the generated code, e.g. a private method
+				try {
+					Method method = subscriber.getDeclaringClass().getDeclaredMethod(subscriber.getMethodName(),
+							subscriber.getEventType());
+					listenerMethod = ListenerMethod.create(method, subscriber.getEventType(), async);
+				} catch (NoSuchMethodException e) {
+					// the index is out of date
+					return null;
+				}
+			}
+			listenerMethod.ordered = subscriber.isOrdered();
+			listenerMethod.priority = subscriber.getPriority();
+			listenerMethod.conflate = subscriber.isConflate() || subscriber.getThrottleMillis() > 0;
+			listenerMethod.throttleNanos = TimeUnit.MILLISECONDS.toNanos(subscriber.getThrottleMillis());
+			// the index has filtered out overridden methods already, only a forced
+			// execution mode can make two of them equal.
+			boolean isPrivate = listenerMethod.method != null
+					&& Modifier.isPrivate(listenerMethod.method.getModifiers());
+			if (!isPrivate && !signatureTracker.add(subscriber.getMethodName() + "("
+					+ subscriber.getEventType().getName() + ")" + async))
+				continue;
+			listenerMethods.add(listenerMethod);
+		}
+		return listenerMethods;
+	}
+
+	/**
+	 * Finds all subscriber methods in the whole class hierarchy of
+	 * {@code subscribedClass}.
+	 *
+	 * A non private method overridden in a sub class is considered only once, from
+	 * the first class which declares it, via {@code signatureTracker}. Private
+	 * methods can not be overridden, so they are always considered.
+	 *
+	 * @param forceAsync
+	 *
+	 */
+	private static List<ListenerMethod> findSubscribeMethods(Class<?> findEventType, Class<?> subscribedClass,
+			boolean forceAsync, Set<Class<?>> classVisitTracker, Set<String> signatureTracker) {
+		if (subscribedClass == null)
+			return Collections.emptyList();
+		if (Object.class.equals(subscribedClass))
+			return Collections.emptyList();
+		if (!classVisitTracker.add(subscribedClass))
+			return Collections.emptyList();
+		Set<ListenerMethod> listenerMethods = new LinkedHashSet<ListenerMethod>();
+		Method[] declaredMethods = subscribedClass.getDeclaredMethods();
+		for (Method method : declaredMethods) {
+			if (!isInvokableMethod(method))
+				continue;
+			Subscribe subscribe = method.getAnnotation(Subscribe.class);
+			if (subscribe == null)
+				continue;
+			Class<?>[] parameterTypes = method.getParameterTypes();
+			if (parameterTypes == null || parameterTypes.length != 1)
+				throw new JBusException(method + " is subscribe enabled, but it should have exactly 1 parameter.");
+			Class<?> eventType = parameterTypes[0];
+			boolean batch = subscribe.batchSize() > 0;
+			if (batch)
+				eventType = getBatchEventType(method);
+			if (!findEventType.isAssignableFrom(eventType))
+				return null;
+			if (subscribe.partitions() < 0)
+				throw new JBusException(method + " is subscribe enabled, but its partitions should not be negative.");
+			if (eventType.isArray() || method.isVarArgs())
+				throw new JBusException(
+						method + " is subscribe enabled, " + "but its parameter should not be an array or varargs.");
+			// batches are always delivered on the executor service
+			boolean async = forceAsync || subscribe.async() || batch;
+			if (!Modifier.isPrivate(method.getModifiers())
+					&& !signatureTracker.add(method.getName() + "(" + eventType.getName() + ")" + async))
+				continue;
+			ListenerMethod listenerMethod = ListenerMethod.create(method, eventType, async);
+			listenerMethod.ordered = subscribe.ordered();
+			listenerMethod.priority = subscribe.priority();
+			listenerMethod.conflate = subscribe.conflate() || subscribe.throttleMillis() > 0;
+			listenerMethod.throttleNanos = TimeUnit.MILLISECONDS.toNanos(subscribe.throttleMillis());
+			listenerMethod.partitions = subscribe.partitions();
+			listenerMethod.batchSize = subscribe.batchSize();
+			listenerMethod.batchLingerNanos = TimeUnit.MILLISECONDS.toNanos(subscribe.batchLingerMillis());
+			listenerMethods.add(listenerMethod);
+		}
+		if (subscribedClass.getSuperclass() != null) {
+			List<ListenerMethod> subscribedMethods = findSubscribeMethods(findEventType,
+					subscribedClass.getSuperclass(), forceAsync, classVisitTracker, signatureTracker);
+			listenerMethods.addAll(subscribedMethods);
+		}
+		if (subscribedClass.getInterfaces() != null) {
+			for (Class<?> interfaceClass : subscribedClass.getInterfaces()) {
+				List<ListenerMethod> subscribedMethods = findSubscribeMethods(findEventType, interfaceClass,
+						forceAsync, classVisitTracker, signatureTracker);
+				listenerMethods.addAll(subscribedMethods);
+			}
+		}
+		return Collections.unmodifiableList(new ArrayList<ListenerMethod>(listenerMethods));
+	}
+
+	/**
+	 * Gets the event type of a batch subscriber method, which is the element type
+	 * of its {@code List} parameter.
+	 */
+	private static Class<?> getBatchEventType(Method method) {
+		if (method.getParameterTypes()[0].isAssignableFrom(List.class)) {
+			Type parameterType = method.getGenericParameterTypes()[0];
+			if (parameterType instanceof ParameterizedType) {
+				Type elementType = ((ParameterizedType) parameterType).getActualTypeArguments()[0];
+				if (elementType instanceof ParameterizedType)
+					elementType = ((ParameterizedType) elementType).getRawType();
+				if (elementType instanceof Class)
+					return (Class<?>) elementType;
+			}
+		}
+		throw new JBusException(method + " is a batch subscriber, but its parameter should be a List of events.");
+	}
+
+	/**
+	 * Gets the class itself along with all of its super classes and all the
+	 * interfaces they implement, most specific type first.
+	 */
+	static Set<Class<?>> getTypeHierarchy(Class<?> type) {
+		Set<Class<?>> hierarchy = new LinkedHashSet<Class<?>>();
+		for (Class<?> current = type; current != null; current = current.getSuperclass())
+			hierarchy.add(current);
+		for (Class<?> current = type; current != null; current = current.getSuperclass())
+			addInterfaces(current, hierarchy);
+		return hierarchy;
+	}
+
+	private static void addInterfaces(Class<?> type, Set<Class<?>> hierarchy) {
+		for (Class<?> interfaceClass : type.getInterfaces()) {
+			if (hierarchy.add(interfaceClass))
+				addInterfaces(interfaceClass, hierarchy);
+		}
+	}
+
+	private static boolean isInvokableMethod(Method method) {
+		if (!method.isBridge() && !method.isSynthetic() && method.getParameterTypes().length == 1)
+			return true;
+		return false;
+	}
+
+	/**
+	 * Key of the subscriber metadata of a listener class.
+	 */
+	private static final class MetadataKey {
+		private final Class<?> eventType;
+		private final boolean forceAsync;
+
+		MetadataKey(Class<?> eventType, boolean forceAsync) {
+			this.eventType = eventType;
+			this.forceAsync = forceAsync;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof MetadataKey))
+				return false;
+			MetadataKey other = (MetadataKey) obj;
+			return eventType.equals(other.eventType) && forceAsync == other.forceAsync;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * eventType.hashCode() + (forceAsync ? 1231 : 1237);
+		}
+	}
+
+}
@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An executor service backed by a preallocated, lock-free, multi-producer
+ * multi-consumer ring buffer, drained by a fixed set of dedicated consumer
+ * threads. It can be passed to {@link JBus#JBus(Class, java.util.concurrent.ExecutorService)}
+ * in place of a thread pool, for lower hand-off latency of async subscribers.
+ *
+ * How idle consumers, and producers finding the ring full, wait is chosen via
+ * a {@link WaitStrategy}. A task executed from a consumer thread while the
+ * ring is full is run by that thread directly, so that a subscriber posting
+ * async events can not dead-lock the consumers.
+ *
+ * @since 1.2
+ */
+public class RingBufferExecutor extends AbstractExecutorService {
+	private static final Class<?> THIS_CLASS = new Object() {
+	}.getClass().getEnclosingClass();
+	private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(THIS_CLASS);
+
+	private static final int RUNNING = 0;
+	private static final int SHUTDOWN = 1;
+	private static final int STOP = 2;
+
+	private static final int SPIN_TRIES = 100;
+	private static final int YIELD_TRIES = 100;
+	private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	/**
+	 * Strategies to wait for tasks, or for free slots in the ring.
+	 */
+	public enum WaitStrategy {
+		/**
+		 * Spins in a tight loop. Lowest latency, but keeps a core busy per waiting
+		 * thread.
+		 */
+		BUSY_SPIN,
+		/**
+		 * Spins shortly, then yields the processor between retries.
+		 */
+		YIELD,
+		/**
+		 * Spins and yields shortly, then parks for a few microseconds between
+		 * retries.
+		 */
+		PARK,
+		/**
+		 * Blocks on a lock condition until signalled. Highest latency, but no CPU is
+		 * used while waiting.
+		 */
+		BLOCKING
+	}
+
+	// Vyukov style bounded queue, the sequence of a slot tells whether it can be
+	// written (sequence == position) or read (sequence == position + 1).
+	private final AtomicReferenceArray<Runnable> buffer;
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+	// producers between their state check and the publication of their task, the
+	// consumers do not stop while a task accepted before the shutdown is pending
+	private final AtomicInteger producers = new AtomicInteger();
+
+	private final WaitStrategy waitStrategy;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+	private final AtomicInteger waiters = new AtomicInteger();
+
+	private final Thread[] consumers;
+	private final CountDownLatch terminated;
+	private volatile int state = RUNNING;
+
+	/**
+	 * Instantiates a new ring buffer executor with daemon consumer threads.
+	 *
+	 * @param capacity the number of slots in the ring, rounded up to a power of
+	 *                 two.
+	 * @param consumers the number of consumer threads.
+	 * @param waitStrategy the wait strategy.
+	 */
+	public RingBufferExecutor(int capacity, int consumers, WaitStrategy waitStrategy) {
+		this(capacity, consumers, waitStrategy, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "jbus-ring-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Instantiates a new ring buffer executor.
+	 *
+	 * @param capacity the number of slots in the ring, rounded up to a power of
+	 *                 two.
+	 * @param consumers the number of consumer threads.
+	 * @param waitStrategy the wait strategy.
+	 * @param threadFactory the factory of the consumer threads.
+	 */
+	public RingBufferExecutor(int capacity, int consumers, WaitStrategy waitStrategy, ThreadFactory threadFactory) {
+		if (capacity <= 0 || capacity > 1 << 30)
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^30.");
+		if (consumers <= 0)
+			throw new IllegalArgumentException("Number of consumers must be positive.");
+		this.waitStrategy = Utils.requireNonNull(waitStrategy);
+		Utils.requireNonNull(threadFactory);
+
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity)
+			size <<= 1;
+		this.buffer = new AtomicReferenceArray<Runnable>(size);
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++)
+			sequences.set(i, i);
+		this.mask = size - 1;
+
+		this.terminated = new CountDownLatch(consumers);
+		this.consumers = new Thread[consumers];
+		for (int i = 0; i < consumers; i++)
+			this.consumers[i] = threadFactory.newThread(new Consumer());
+		for (Thread consumer : this.consumers)
+			consumer.start();
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		Utils.requireNonNull(command);
+		int counter = 0;
+		while (!offer(command)) {
+			if (state != RUNNING)
+				throw new RejectedExecutionException("Executor has been shutdown.");
+			if (isConsumerThread()) {
+				// waiting for a free slot here might wait for this very thread
+				command.run();
+				return;
+			}
+			counter = waitForSlot(counter);
+		}
+		if (waitStrategy == WaitStrategy.BLOCKING)
+			signal(notEmpty);
+	}
+
+	@Override
+	public void shutdown() {
+		if (state == RUNNING)
+			state = SHUTDOWN;
+		wakeUp();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		state = STOP;
+		// let the accepted tasks being published land in the ring, producers never
+		// block while publishing
+		while (producers.get() > 0)
+			Thread.yield();
+		List<Runnable> pending = new ArrayList<Runnable>();
+		for (Runnable task = poll(); task != null; task = poll())
+			pending.add(task);
+		for (Thread consumer : consumers)
+			consumer.interrupt();
+		wakeUp();
+		return pending;
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return state != RUNNING;
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return terminated.getCount() == 0;
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return terminated.await(timeout, unit);
+	}
+
+	private boolean offer(Runnable task) {
+		// announced before the state check, so that a consumer seeing the shutdown
+		// also sees this producer, or this producer sees the shutdown
+		producers.incrementAndGet();
+		try {
+			if (state != RUNNING)
+				throw new RejectedExecutionException("Executor has been shutdown.");
+			for (;;) {
+				long position = tail.get();
+				int index = (int) position & mask;
+				long difference = sequences.get(index) - position;
+				if (difference == 0) {
+					if (tail.compareAndSet(position, position + 1)) {
+						buffer.lazySet(index, task);
+						sequences.set(index, position + 1);
+						return true;
+					}
+				} else if (difference < 0) {
+					// full
+					return false;
+				}
+			}
+		} finally {
+			producers.decrementAndGet();
+		}
+	}
+
+	private Runnable poll() {
+		for (;;) {
+			long position = head.get();
+			int index = (int) position & mask;
+			long difference = sequences.get(index) - (position + 1);
+			if (difference == 0) {
+				if (head.compareAndSet(position, position + 1)) {
+					Runnable task = buffer.get(index);
+					buffer.lazySet(index, null);
+					sequences.set(index, position + mask + 1);
+					return task;
+				}
+			} else if (difference < 0) {
+				// empty
+				return null;
+			}
+		}
+	}
+
+	private boolean isEmpty() {
+		return head.get() >= tail.get();
+	}
+
+	private boolean isFull() {
+		return tail.get() - head.get() > mask;
+	}
+
+	private boolean isConsumerThread() {
+		Thread current = Thread.currentThread();
+		for (Thread consumer : consumers) {
+			if (consumer == current)
+				return true;
+		}
+		return false;
+	}
+
+	private int waitForSlot(int counter) {
+		if (waitStrategy == WaitStrategy.BLOCKING) {
+			lock.lock();
+			try {
+				waiters.incrementAndGet();
+				try {
+					// timed, as a producer must notice a shutdown as well
+					while (isFull() && state == RUNNING)
+						notFull.await(1, TimeUnit.MILLISECONDS);
+				} finally {
+					waiters.decrementAndGet();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException("Interrupted while waiting for a free slot.", e);
+			} finally {
+				lock.unlock();
+			}
+			return counter;
+		}
+		return idle(counter);
+	}
+
+	private int waitForTask(int counter) throws InterruptedException {
+		if (waitStrategy == WaitStrategy.BLOCKING) {
+			lock.lock();
+			try {
+				waiters.incrementAndGet();
+				try {
+					while (isEmpty() && state == RUNNING)
+						notEmpty.await();
+				} finally {
+					waiters.decrementAndGet();
+				}
+			} finally {
+				lock.unlock();
+			}
+			return counter;
+		}
+		if (Thread.interrupted())
+			throw new InterruptedException();
+		return idle(counter);
+	}
+
+	private int idle(int counter) {
+		switch (waitStrategy) {
+		case BUSY_SPIN:
+			return counter;
+		case YIELD:
+			if (counter < SPIN_TRIES)
+				return counter + 1;
+			Thread.yield();
+			return counter;
+		default:
+			if (counter < SPIN_TRIES)
+				return counter + 1;
+			if (counter < SPIN_TRIES + YIELD_TRIES) {
+				Thread.yield();
+				return counter + 1;
+			}
+			LockSupport.parkNanos(this, PARK_NANOS);
+			return counter;
+		}
+	}
+
+	private void signal(Condition condition) {
+		// producers and consumers only lock when somebody is blocked
+		if (waiters.get() == 0)
+			return;
+		lock.lock();
+		try {
+			condition.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void wakeUp() {
+		lock.lock();
+		try {
+			notEmpty.signalAll();
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		for (Thread consumer : consumers)
+			LockSupport.unpark(consumer);
+	}
+
+	/**
+	 * Consumer loop, running tasks until the executor is shut down and the ring
+	 * is drained, or the executor is stopped.
+	 */
+	private class Consumer implements Runnable {
+		@Override
+		public void run() {
+			try {
+				int counter = 0;
+				while (state != STOP) {
+					Runnable task = poll();
+					if (task != null) {
+						counter = 0;
+						if (waitStrategy == WaitStrategy.BLOCKING)
+							signal(notFull);
+						try {
+							task.run();
+						} catch (Throwable e) {
+							logger.error("Error occurred while executing " + task, e);
+						}
+					} else if (state != RUNNING && producers.get() == 0 && isEmpty()) {
+						// no producer is left to publish a task accepted before the
+						// shutdown, and a claimed slot is not empty until published
+						return;
+					} else {
+						try {
+							counter = waitForTask(counter);
+						} catch (InterruptedException e) {
+							// interrupted by shutdownNow, the state tells what to do
+						}
+					}
+				}
+			} finally {
+				terminated.countDown();
+			}
+		}
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timer shared by all event buses, for the delayed delivery of throttled
+ * and batching subscribers. Its single daemon thread only hands tasks over to
+ * the executor service of their bus, it never invokes a subscriber itself.
+ *
+ * @since 1.2
+ */
+final class Scheduler {
+	private static final Class<?> THIS_CLASS = new Object() {
+	}.getClass().getEnclosingClass();
+	private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(THIS_CLASS);
+
+	private Scheduler() {
+	}
+
+	// created on first use, most buses never need it
+	private static final class Holder {
+		static final ScheduledExecutorService TIMER = createTimer();
+	}
+
+	private static ScheduledExecutorService createTimer() {
+		ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "jbus-timer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		timer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		return timer;
+	}
+
+	/**
+	 * Runs a task once the delay has passed. The task must be short, e.g. hand
+	 * over to an executor service.
+	 */
+	static void schedule(final Runnable task, long delayNanos) {
+		Holder.TIMER.schedule(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					task.run();
+				} catch (Throwable e) {
+					logger.error("Error occurred while running a delayed task", e);
+				}
+			}
+		}, delayNanos, TimeUnit.NANOSECONDS);
+	}
+}
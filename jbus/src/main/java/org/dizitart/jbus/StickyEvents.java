@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A cache of the latest sticky event per concrete event type. Reads do not
+ * lock, writes update the events and their eviction order together under a
+ * lock. If a maximum size is set, the event types stored first are evicted
+ * first.
+ *
+ * @since 1.2
+ */
+class StickyEvents {
+	private final ConcurrentMap<Class<?>, Object> events = new ConcurrentHashMap<Class<?>, Object>();
+	// event types in the order they have been stored, for eviction. guarded by
+	// the lock, along with the writes of the events
+	private final Set<Class<?>> insertionOrder = new LinkedHashSet<Class<?>>();
+	private final Object lock = new Object();
+	private int maxSize = Integer.MAX_VALUE;
+
+	void put(Object event) {
+		Class<?> eventType = event.getClass();
+		synchronized (lock) {
+			// replacing the event of a stored type does not change its eviction order
+			if (events.put(eventType, event) == null) {
+				insertionOrder.add(eventType);
+				evict();
+			}
+		}
+	}
+
+	<X> X get(Class<X> eventType) {
+		return eventType.cast(events.get(eventType));
+	}
+
+	<X> X remove(Class<X> eventType) {
+		synchronized (lock) {
+			insertionOrder.remove(eventType);
+			return eventType.cast(events.remove(eventType));
+		}
+	}
+
+	void clear() {
+		synchronized (lock) {
+			events.clear();
+			insertionOrder.clear();
+		}
+	}
+
+	boolean isEmpty() {
+		return events.isEmpty();
+	}
+
+	Collection<Object> values() {
+		return events.values();
+	}
+
+	void setMaxSize(int maxSize) {
+		if (maxSize <= 0)
+			throw new IllegalArgumentException("Maximum number of sticky events must be positive.");
+		synchronized (lock) {
+			this.maxSize = maxSize;
+			evict();
+		}
+	}
+
+	// with the lock held
+	private void evict() {
+		Iterator<Class<?>> eldest = insertionOrder.iterator();
+		while (insertionOrder.size() > maxSize) {
+			events.remove(eldest.next());
+			eldest.remove();
+		}
+	}
+}
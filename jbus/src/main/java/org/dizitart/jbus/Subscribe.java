@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Makes a method eligible to respond to an event.
+ *
+ * <p>It should be applied to a method (with any access modifier) which has
+ * only one argument with the type of the event. If it is applied on a method
+ * having no parameter or more than one parameters, during registration, event bus
+ * runtime will throw a {@link JBusException}.
+ * </p>
+ *
+ * If a method in an interface or an abstract class is marked with this annotation,
+ * all the overridden methods will be eligible for subscription.
+ *
+ * @since 1.0
+ * @author Anindya Chatterjee.
+ * @see JBus#register(Object)
+ * @see JBus#registerWeak(Object)
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD})
+public @interface Subscribe {
+
+    /**
+     * Declares whether the subscribed method will be invoked asynchronously.
+     *
+     * <p>Defaults to {@code false}</p>.
+     *
+     * @return async flag.
+     * */
+    boolean async() default false;
+
+    /**
+     * Declares whether an asynchronous subscribed method receives the events in
+     * the order they have been posted. Events are queued in a mailbox of the
+     * subscriber, which is drained by one task of the executor service at a
+     * time, so the method is never invoked concurrently with itself.
+     *
+     * <p>It has no effect on a synchronous method. Defaults to {@code false}</p>.
+     *
+     * @return ordered flag.
+     * @since 1.2
+     * */
+    boolean ordered() default false;
+
+    /**
+     * Declares the priority of the subscribed method within the handler chain
+     * of an event. Subscribers with higher priority are invoked first, so that
+     * they can interrupt the chain before the others run. Subscribers with the
+     * same priority are invoked in the order of their registration.
+     *
+     * <p>Defaults to {@code 0}</p>.
+     *
+     * @return priority of the method.
+     * @since 1.2
+     * */
+    int priority() default 0;
+
+    /**
+     * Declares whether an asynchronous subscribed method only receives the latest
+     * event of each key. A posted event replaces the pending, not yet delivered
+     * event of the same key in place, so a slow subscriber does not fall behind
+     * on stale events. The key of an event is extracted by the
+     * {@link KeyExtractor} set for its type via
+     * {@link JBus#setKeyExtractor(Class, KeyExtractor)}. Without one, every event
+     * replaces the pending event. Events are delivered one at a time, like for
+     * an {@link #ordered()} method.
+     *
+     * <p>It has no effect on a synchronous method. Defaults to {@code false}</p>.
+     *
+     * @return conflate flag.
+     * @since 1.2
+     * */
+    boolean conflate() default false;
+
+    /**
+     * Declares a throttle window of a conflating asynchronous subscribed method,
+     * in milliseconds. The method then receives the latest events of the keys
+     * updated in a window at most once per window. A positive window implies
+     * {@link #conflate()}.
+     *
+     * <p>It has no effect on a synchronous method. Defaults to {@code 0}, no
+     * throttling</p>.
+     *
+     * @return throttle window in milliseconds.
+     * @since 1.2
+     * */
+    long throttleMillis() default 0;
+
+    /**
+     * Declares the number of lanes of a key partitioned asynchronous subscribed
+     * method. The key of an event, extracted by the {@link KeyExtractor} set for
+     * its type via {@link JBus#setKeyExtractor(Class, KeyExtractor)}, is hashed
+     * to one of the lanes. Each lane is drained by one task of the executor
+     * service at a time, so the events of a key are received in the order they
+     * have been posted, while the events of different lanes are received in
+     * parallel. Without a key extractor, every event goes to the same lane.
+     *
+     * <p>It has no effect on a synchronous method. Defaults to {@code 0}, not
+     * partitioned</p>.
+     *
+     * @return number of lanes.
+     * @since 1.2
+     * */
+    int partitions() default 0;
+
+    /**
+     * Declares the subscribed method as a batch subscriber, receiving up to this
+     * many events at once. The method must accept a {@code List} of the event
+     * type, e.g. {@code void insert(List<UserEvent> events)}. Events are
+     * accumulated per listener and the batches are delivered in order, on the
+     * executor service, one at a time. Pending events are delivered by
+     * {@link JBus#flushBatches()} and by the shutdown hook.
+     *
+     * <p>Defaults to {@code 0}, not a batch subscriber</p>.
+     *
+     * @return maximum batch size.
+     * @since 1.2
+     * */
+    int batchSize() default 0;
+
+    /**
+     * Declares the maximum time the first event of a batch waits for the batch to
+     * fill up, in milliseconds. It only applies to a batch subscriber.
+     *
+     * <p>Defaults to {@code 0}, a batch is only delivered once it is full</p>.
+     *
+     * @return maximum linger time in milliseconds.
+     * @since 1.2
+     * */
+    long batchLingerMillis() default 0;
+}
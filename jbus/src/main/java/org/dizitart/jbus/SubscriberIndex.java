@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+/**
+ * An index of subscriber methods of listener classes, resolved at compile time.
+ *
+ * <p>The JBus annotation processor generates an implementation of this interface
+ * per package and registers it as a {@link java.util.ServiceLoader} service, so
+ * that listener registration can skip scanning the listener class hierarchy via
+ * reflection. An index can also be added explicitly via
+ * {@link JBus#addSubscriberIndex(SubscriberIndex)}. Any listener class which is
+ * not found in an index is scanned via reflection as usual.</p>
+ *
+ * @since 1.2
+ * @see IndexedSubscriber
+ */
+public interface SubscriberIndex {
+    /**
+     * Gets all subscriber methods in the whole class hierarchy of a listener
+     * class, with overridden methods already filtered out.
+     *
+     * @param listenerClass the class of the listener object.
+     * @return the subscriber methods, or {@code null} if the class is not indexed.
+     * */
+    IndexedSubscriber[] getSubscribers(Class<?> listenerClass);
+}
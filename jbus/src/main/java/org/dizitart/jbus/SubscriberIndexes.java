@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps track of all {@link SubscriberIndex} known to the runtime. Indexes
+ * generated by the annotation processor are discovered via
+ * {@link ServiceLoader}, others can be added explicitly.
+ *
+ * @since 1.2
+ */
+class SubscriberIndexes {
+	private static final Class<?> THIS_CLASS = new Object() {
+	}.getClass().getEnclosingClass();
+	private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(THIS_CLASS);
+
+	private static final List<SubscriberIndex> INDEXES = new CopyOnWriteArrayList<SubscriberIndex>();
+	static {
+		try {
+			for (SubscriberIndex index : ServiceLoader.load(SubscriberIndex.class)) {
+				INDEXES.add(index);
+				logger.debug("Subscriber index {} has been loaded.", index.getClass().getName());
+			}
+		} catch (ServiceConfigurationError e) {
+			logger.warn("Could not load subscriber indexes, falling back to reflection.", e);
+		}
+	}
+
+	static void add(SubscriberIndex index) {
+		INDEXES.add(Utils.requireNonNull(index, "subscriber index can not be null"));
+	}
+
+	/**
+	 * Finds the indexed subscriber methods of a listener class.
+	 *
+	 * @return the subscriber methods, or null if no index knows the class.
+	 */
+	static IndexedSubscriber[] find(Class<?> listenerClass) {
+		for (SubscriberIndex index : INDEXES) {
+			IndexedSubscriber[] subscribers = index.getSubscribers(listenerClass);
+			if (subscribers != null)
+				return subscribers;
+		}
+		return null;
+	}
+}
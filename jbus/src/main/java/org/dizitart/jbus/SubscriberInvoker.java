@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+/**
+ * Invokes a subscriber method of a listener object directly, without
+ * reflection. Implementations are generated at compile time by the JBus
+ * annotation processor as part of a {@link SubscriberIndex}.
+ *
+ * @since 1.2
+ * @see SubscriberIndex
+ */
+public interface SubscriberInvoker {
+    /**
+     * Invokes the subscriber method on the listener object.
+     *
+     * @param listener the listener object.
+     * @param event the event to deliver.
+     * @throws Throwable any error thrown from the subscriber method.
+     * */
+    void invoke(Object listener, Object event) throws Throwable;
+}
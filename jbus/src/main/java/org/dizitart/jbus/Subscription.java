@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+/**
+ * A handle of a listener registration, returned by the {@code register*}
+ * methods of {@link JBus}.
+ *
+ * <p>Cancelling a subscription removes only the subscriber methods of that
+ * registration, so it is cheap regardless of how many other listeners are
+ * registered.</p>
+ *
+ * @since 1.2
+ * @see JBus#register(Object)
+ * @see JBus#deregister(Object)
+ */
+public interface Subscription {
+    /**
+     * Cancels the subscription. After cancellation the listener cease to
+     * listen to any further event. Cancelling an already cancelled
+     * subscription does nothing.
+     * */
+    void cancel();
+
+    /**
+     * Checks if the subscription has been cancelled, either via {@link #cancel()},
+     * {@link JBus#deregister(Object)} or because the weak referenced listener
+     * has been garbage collected.
+     *
+     * @return {@code true} if cancelled.
+     * */
+    boolean isCancelled();
+}
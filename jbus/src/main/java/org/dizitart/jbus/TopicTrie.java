@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The topic subscriptions of an event bus, in a trie of topic segments. A
+ * topic is a list of segments separated by dots, e.g. {@code orders.eu.created}.
+ * In a pattern, {@code *} matches exactly one segment and {@code #}, which must
+ * be the last segment, matches zero or more segments. Matching a topic visits
+ * the nodes along its segments only, whatever the number of subscriptions.
+ * <p>
+ * The trie is guarded by the lock of the registry. The resolved subscribers of
+ * a concrete topic and event class are cached, and can be read without the lock.
+ *
+ * @since 1.2
+ */
+final class TopicTrie {
+	private static final String ONE = "*";
+	private static final String ANY = "#";
+	// bounds the cache, as topics often carry ids
+	private static final int MAX_CACHED_TOPICS = 4096;
+
+	private final Node root = new Node();
+	private final Map<String, Map<Class<?>, ListenerMethod[]>> cache = new ConcurrentHashMap<String, Map<Class<?>, ListenerMethod[]>>();
+
+	/**
+	 * Checks a subscription pattern.
+	 *
+	 * @exception JBusException if a segment is empty, or a wildcard is mixed with
+	 *                          other characters in a segment, or {@code #} is not
+	 *                          the last segment.
+	 */
+	static void validatePattern(String pattern) {
+		String[] segments = split(pattern);
+		for (int i = 0; i < segments.length; i++) {
+			String segment = segments[i];
+			if (segment.length() == 0)
+				throw new JBusException("Topic pattern " + pattern + " has an empty segment.");
+			if (segment.length() > 1 && (segment.contains(ONE) || segment.contains(ANY)))
+				throw new JBusException("Wildcards must be whole segments of topic pattern " + pattern);
+			if (segment.equals(ANY) && i < segments.length - 1)
+				throw new JBusException("# must be the last segment of topic pattern " + pattern);
+		}
+	}
+
+	private static String[] split(String topic) {
+		return topic.split("\\.", -1);
+	}
+
+	/**
+	 * Adds a subscriber method for the events of its topic pattern.
+	 */
+	void add(ListenerMethod listenerMethod) {
+		Node node = root;
+		for (String segment : split(listenerMethod.topic))
+			node = node.child(segment, true);
+		if (node.subscribers == null)
+			node.subscribers = new LinkedHashSet<ListenerMethod>();
+		node.subscribers.add(listenerMethod);
+		cache.clear();
+	}
+
+	/**
+	 * Removes a subscriber method, along with the nodes it leaves empty.
+	 *
+	 * @return true if the subscriber method has been removed.
+	 */
+	boolean remove(ListenerMethod listenerMethod) {
+		boolean removed = remove(root, split(listenerMethod.topic), 0, listenerMethod);
+		if (removed)
+			cache.clear();
+		return removed;
+	}
+
+	private static boolean remove(Node node, String[] segments, int index, ListenerMethod listenerMethod) {
+		if (index == segments.length)
+			return node.subscribers != null && node.subscribers.remove(listenerMethod);
+		Node child = node.child(segments[index], false);
+		if (child == null || !remove(child, segments, index + 1, listenerMethod))
+			return false;
+		if (child.isEmpty())
+			node.removeChild(segments[index]);
+		return true;
+	}
+
+	/**
+	 * Adds every subscriber method of the trie to the collection.
+	 */
+	void collect(Collection<ListenerMethod> listenerMethods) {
+		root.collect(listenerMethods);
+	}
+
+	/**
+	 * Gets the cached subscribers of a topic for an event class, null if they are
+	 * not resolved yet.
+	 */
+	ListenerMethod[] getCached(String topic, Class<?> eventClass) {
+		Map<Class<?>, ListenerMethod[]> resolved = cache.get(topic);
+		return resolved == null ? null : resolved.get(eventClass);
+	}
+
+	/**
+	 * Resolves the subscribers of a topic which listen to events of the class,
+	 * sorted by priority, and caches them. Must be called while holding the lock.
+	 */
+	ListenerMethod[] resolve(String topic, Class<?> eventClass) {
+		ListenerMethod[] subscribers = getCached(topic, eventClass);
+		if (subscribers != null)
+			return subscribers;
+		List<ListenerMethod> matches = new ArrayList<ListenerMethod>();
+		match(root, split(topic), 0, matches);
+		List<ListenerMethod> results = new ArrayList<ListenerMethod>(matches.size());
+		for (ListenerMethod listenerMethod : matches) {
+			if (listenerMethod.eventType.isAssignableFrom(eventClass))
+				results.add(listenerMethod);
+		}
+		// merge sort is stable, the trie order is kept within a priority
+		Collections.sort(results, ListenerMethod.PRIORITY_ORDER);
+		subscribers = results.isEmpty() ? ListenerMethod.EMPTY
+				: results.toArray(new ListenerMethod[results.size()]);
+
+		Map<Class<?>, ListenerMethod[]> resolved = cache.get(topic);
+		if (resolved == null) {
+			if (cache.size() >= MAX_CACHED_TOPICS)
+				cache.clear();
+			resolved = new ConcurrentHashMap<Class<?>, ListenerMethod[]>();
+			cache.put(topic, resolved);
+		}
+		resolved.put(eventClass, subscribers);
+		return subscribers;
+	}
+
+	// each pattern is a single path of the trie, which a topic reaches at most
+	// once, so the matches are distinct.
+	private static void match(Node node, String[] segments, int index, List<ListenerMethod> matches) {
+		// # matches the rest of the topic, even if nothing is left
+		if (node.any != null && node.any.subscribers != null)
+			matches.addAll(node.any.subscribers);
+		if (index == segments.length) {
+			if (node.subscribers != null)
+				matches.addAll(node.subscribers);
+			return;
+		}
+		if (node.children != null) {
+			Node child = node.children.get(segments[index]);
+			if (child != null)
+				match(child, segments, index + 1, matches);
+		}
+		if (node.one != null)
+			match(node.one, segments, index + 1, matches);
+	}
+
+	private static final class Node {
+		// children of literal segments, created on demand
+		Map<String, Node> children;
+		// child of the * wildcard
+		Node one;
+		// child of the # wildcard, which is always a leaf
+		Node any;
+		// subscribers whose pattern ends at this node
+		Set<ListenerMethod> subscribers;
+
+		Node child(String segment, boolean create) {
+			if (segment.equals(ONE)) {
+				if (one == null && create)
+					one = new Node();
+				return one;
+			}
+			if (segment.equals(ANY)) {
+				if (any == null && create)
+					any = new Node();
+				return any;
+			}
+			Node child = children == null ? null : children.get(segment);
+			if (child == null && create) {
+				if (children == null)
+					children = new HashMap<String, Node>();
+				child = new Node();
+				children.put(segment, child);
+			}
+			return child;
+		}
+
+		void removeChild(String segment) {
+			if (segment.equals(ONE)) {
+				one = null;
+			} else if (segment.equals(ANY)) {
+				any = null;
+			} else {
+				children.remove(segment);
+				if (children.isEmpty())
+					children = null;
+			}
+		}
+
+		boolean isEmpty() {
+			return (subscribers == null || subscribers.isEmpty()) && children == null && one == null && any == null;
+		}
+
+		void collect(Collection<ListenerMethod> listenerMethods) {
+			if (subscribers != null)
+				listenerMethods.addAll(subscribers);
+			if (children != null) {
+				for (Node child : children.values())
+					child.collect(listenerMethods);
+			}
+			if (one != null)
+				one.collect(listenerMethods);
+			if (any != null)
+				any.collect(listenerMethods);
+		}
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Access to virtual threads. They are not available before Java 21, on which
+ * this class is replaced by its multi-release version.
+ *
+ * @since 1.2
+ */
+class VirtualThreads {
+
+	static boolean isSupported() {
+		return false;
+	}
+
+	/**
+	 * Creates an executor service starting a new virtual thread per task.
+	 *
+	 * @return the executor service, or null if virtual threads are not supported.
+	 */
+	static ExecutorService newThreadPerTaskExecutor() {
+		return null;
+	}
+}
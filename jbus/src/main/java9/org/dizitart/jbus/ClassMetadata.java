@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.dizitart.jbus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the metadata of listener classes, like their resolved subscriber
+ * methods, Java 9+ version.
+ *
+ * The metadata is stored on the class itself via a {@link ClassValue}, so it
+ * does not pin the class loader of a listener class, and lives as long as the
+ * class does.
+ *
+ * @since 1.2
+ */
+class ClassMetadata {
+	private static final ClassValue<Map<Object, Object>> CACHE = new ClassValue<Map<Object, Object>>() {
+		@Override
+		protected Map<Object, Object> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<Object, Object>();
+		}
+	};
+
+	private ClassMetadata() {
+	}
+
+	/**
+	 * Gets the metadata of a class, an empty map if it has not been resolved yet.
+	 */
+	static Map<Object, Object> get(Class<?> type) {
+		return CACHE.get(type);
+	}
+}
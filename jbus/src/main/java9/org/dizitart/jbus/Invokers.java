@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Creates invokers for subscriber methods found via reflection, Java 9+
+ * version.
+ *
+ * An instance method is bound to a {@link SubscriberInvoker} implementation
+ * spun by {@link LambdaMetafactory}, so that the call site in the dispatcher
+ * sees a plain interface call which the JIT can inline. If the metafactory
+ * can not be used, e.g. the listener class is defined by a class loader which
+ * can not see JBus, the invoker falls back to a {@link MethodHandle}. Both use
+ * a private lookup in the declaring class, which does not require
+ * {@code setAccessible}.
+ *
+ * @since 1.2
+ */
+class Invokers {
+	private static final Class<?> THIS_CLASS = new Object() {
+	}.getClass().getEnclosingClass();
+	private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(THIS_CLASS);
+
+	private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	private static final MethodType FACTORY_TYPE = MethodType.methodType(SubscriberInvoker.class);
+
+	/**
+	 * Creates an invoker for a subscriber method.
+	 *
+	 * @return the invoker, or null if the method has to be invoked via reflection.
+	 */
+	static SubscriberInvoker create(Method method) {
+		MethodHandle handle;
+		MethodHandles.Lookup lookup;
+		try {
+			lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+			handle = lookup.unreflect(method);
+		} catch (Exception e) {
+			logger.debug("Could not create method handle for " + method + ", it will be invoked via reflection", e);
+			return null;
+		}
+
+		if (!Modifier.isStatic(method.getModifiers())) {
+			try {
+				CallSite callSite = LambdaMetafactory.metafactory(lookup, "invoke", FACTORY_TYPE, INVOKER_TYPE,
+						handle, MethodType.methodType(void.class, method.getDeclaringClass(),
+								method.getParameterTypes()[0]));
+				return (SubscriberInvoker) callSite.getTarget().invoke();
+			} catch (Throwable e) {
+				logger.debug("Could not spin invoker for " + method + ", using method handle instead", e);
+			}
+		} else {
+			// the listener argument is ignored for a static method
+			handle = MethodHandles.dropArguments(handle, 0, Object.class);
+		}
+		return new MethodHandleInvoker(handle.asType(INVOKER_TYPE));
+	}
+
+	/**
+	 * Invokes a subscriber method via a method handle adapted to
+	 * {@code (Object, Object)void}.
+	 */
+	private static final class MethodHandleInvoker implements SubscriberInvoker {
+		private final MethodHandle handle;
+
+		MethodHandleInvoker(MethodHandle handle) {
+			this.handle = handle;
+		}
+
+		@Override
+		public void invoke(Object listener, Object event) throws Throwable {
+			handle.invokeExact(listener, event);
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class AllocationTest {
+    private static final int WARM_UP_POSTS = 50000;
+    private static final int MEASURED_POSTS = 10000;
+
+    private JBus jBus;
+
+    @Before
+    public void setUp() {
+        jBus = new JBus(Object.class);
+    }
+
+    @Test
+    public void testSynchronousPostDoesNotAllocate() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+        Listener listener = new Listener();
+        jBus.register(listener);
+        jBus.registerWeak(new Listener());
+        UserEvent event = new UserEvent();
+
+        for (int i = 0; i < WARM_UP_POSTS; i++) {
+            jBus.post(event);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_POSTS; i++) {
+            jBus.post(event);
+        }
+        long after = allocationBean.getThreadAllocatedBytes(threadId);
+
+        assertEquals(listener.invocationCount, WARM_UP_POSTS + MEASURED_POSTS);
+        long bytesPerPost = (after - before) / MEASURED_POSTS;
+        assertTrue("allocated " + bytesPerPost + " bytes per post", bytesPerPost == 0);
+    }
+
+    private class UserEvent {}
+
+    private class Listener {
+        int invocationCount;
+
+        @Subscribe
+        public void listen(UserEvent event) {
+            invocationCount++;
+        }
+    }
+}
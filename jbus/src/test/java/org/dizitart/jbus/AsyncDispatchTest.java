@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class AsyncDispatchTest {
+    private CountingExecutor executor;
+    private JBus<Object> jBus;
+
+    @Before
+    public void setUp() {
+        executor = new CountingExecutor();
+        jBus = new JBus<Object>(Object.class, executor);
+    }
+
+    @Test
+    public void testOneTaskPerPost() {
+        AsyncListener[] listeners = new AsyncListener[10];
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i] = new AsyncListener();
+            jBus.register(listeners[i]);
+        }
+        jBus.post(new UserEvent());
+
+        assertEquals(executor.tasks, 1);
+        for (AsyncListener listener : listeners) {
+            assertEquals(listener.counter, 1);
+        }
+    }
+
+    @Test
+    public void testChunkedFanOut() {
+        jBus.setAsyncChunkSize(4);
+        for (int i = 0; i < 10; i++) {
+            jBus.register(new AsyncListener());
+        }
+        jBus.post(new UserEvent());
+
+        assertEquals(executor.tasks, 3);
+    }
+
+    @Test
+    public void testSyncSubscriberSplitsAsyncRuns() {
+        jBus.register(new AsyncListener());
+        jBus.register(new AsyncListener());
+        SyncListener syncListener = new SyncListener();
+        jBus.register(syncListener);
+        jBus.register(new AsyncListener());
+        jBus.post(new UserEvent());
+
+        // async subscribers registered before the sync one are dispatched before it
+        assertEquals(syncListener.tasksBefore, 1);
+        assertEquals(executor.tasks, 2);
+    }
+
+    @Test
+    public void testOrderedDelivery() throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            JBus<Object> jBus = new JBus<Object>(Object.class, executorService);
+            OrderedListener listener = new OrderedListener(1000);
+            jBus.register(listener);
+            for (int i = 0; i < 1000; i++) {
+                jBus.post(new SequenceEvent(i));
+            }
+
+            assertTrue(listener.latch.await(10, TimeUnit.SECONDS));
+            assertEquals(listener.maxConcurrency, 1);
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(listener.received.get(i).intValue(), i);
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejectedOrderedDrain() throws InterruptedException {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        executorService.shutdown();
+        JBus<Object> jBus = new JBus<Object>(Object.class, executorService);
+        OrderedListener listener = new OrderedListener(1);
+        jBus.register(listener);
+        for (int i = 0; i < 2; i++) {
+            try {
+                jBus.post(new SequenceEvent(i));
+                fail("the drain of the mailbox must be rejected");
+            } catch (RejectedExecutionException e) {
+                // the mailbox is released, the next post schedules it again
+            }
+        }
+
+        assertTrue(jBus.awaitQuiescence(1, TimeUnit.SECONDS));
+        assertTrue(listener.received.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidChunkSize() {
+        jBus.setAsyncChunkSize(0);
+    }
+
+    private class UserEvent {}
+
+    private class SequenceEvent {
+        final int sequence;
+
+        SequenceEvent(int sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    private class AsyncListener {
+        int counter;
+
+        @Subscribe(async = true)
+        public void listen(UserEvent event) {
+            counter++;
+        }
+    }
+
+    private class SyncListener {
+        int tasksBefore;
+
+        @Subscribe
+        public void listen(UserEvent event) {
+            tasksBefore = executor.tasks;
+        }
+    }
+
+    private class OrderedListener {
+        final List<Integer> received = new ArrayList<Integer>();
+        final AtomicInteger concurrency = new AtomicInteger();
+        final CountDownLatch latch;
+        volatile int maxConcurrency;
+
+        OrderedListener(int count) {
+            latch = new CountDownLatch(count);
+        }
+
+        @Subscribe(async = true, ordered = true)
+        public void listen(SequenceEvent event) {
+            int current = concurrency.incrementAndGet();
+            if (current > maxConcurrency) {
+                maxConcurrency = current;
+            }
+            synchronized (received) {
+                received.add(event.sequence);
+            }
+            concurrency.decrementAndGet();
+            latch.countDown();
+        }
+    }
+
+    // runs the tasks on the posting thread, counting them
+    private static class CountingExecutor extends AbstractExecutorService {
+        int tasks;
+        boolean shutdown;
+
+        @Override
+        public void execute(Runnable command) {
+            tasks++;
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class AsyncExecutorsTest {
+
+    @Test
+    public void testVirtualThreadExecutor() throws InterruptedException {
+        ExecutorService executorService = AsyncExecutors.newVirtualThreadExecutor(4);
+        try {
+            JBus<Object> jBus = new JBus<Object>(Object.class, executorService);
+            BlockingListener listener = new BlockingListener(100);
+            jBus.register(listener);
+            for (int i = 0; i < 100; i++) {
+                jBus.post(new UserEvent());
+            }
+
+            assertTrue(listener.latch.await(10, TimeUnit.SECONDS));
+            assertTrue(listener.maxConcurrency <= 4);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrencyLimit() throws InterruptedException {
+        ConcurrencyLimitedExecutor executor = new ConcurrencyLimitedExecutor(Executors.newCachedThreadPool(), 3);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final AtomicInteger completed = new AtomicInteger();
+        for (int i = 0; i < 50; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    int current = running.incrementAndGet();
+                    while (true) {
+                        int max = maxRunning.get();
+                        if (current <= max || maxRunning.compareAndSet(max, current)) {
+                            break;
+                        }
+                    }
+                    sleep(2);
+                    running.decrementAndGet();
+                    completed.incrementAndGet();
+                }
+            });
+        }
+
+        // shutdown still runs the queued tasks
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(executor.isTerminated());
+        assertEquals(completed.get(), 50);
+        assertTrue(maxRunning.get() <= 3);
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testRejectAfterShutdown() {
+        ConcurrencyLimitedExecutor executor = new ConcurrencyLimitedExecutor(Executors.newCachedThreadPool(), 1);
+        executor.shutdown();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+
+    @Test
+    public void testRejectedByDelegate() {
+        RejectingExecutor delegate = new RejectingExecutor();
+        ConcurrencyLimitedExecutor executor = new ConcurrencyLimitedExecutor(delegate, 1);
+        final AtomicInteger completed = new AtomicInteger();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                completed.incrementAndGet();
+            }
+        };
+        delegate.reject = true;
+        try {
+            executor.execute(task);
+            fail();
+        } catch (RejectedExecutionException e) {
+            assertEquals(e.getMessage(), "rejected");
+        }
+        assertEquals(completed.get(), 0);
+
+        // the slot has been released and the rejected task is not queued anymore
+        delegate.reject = false;
+        executor.execute(task);
+        assertEquals(completed.get(), 1);
+
+        executor.shutdown();
+        assertTrue(executor.isShutdown());
+        try {
+            executor.execute(task);
+            fail();
+        } catch (RejectedExecutionException e) {
+            assertEquals(completed.get(), 1);
+        }
+    }
+
+    @Test
+    public void testQueuedTaskRejectedByDelegate() {
+        RejectingExecutor delegate = new RejectingExecutor();
+        ConcurrencyLimitedExecutor executor = new ConcurrencyLimitedExecutor(delegate, 1);
+        final AtomicInteger completed = new AtomicInteger();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                completed.incrementAndGet();
+            }
+        };
+        delegate.defer = true;
+        executor.execute(task);
+        executor.execute(task);
+        assertEquals(delegate.deferred.size(), 1);
+
+        // the queued task has been accepted, so it runs once the delegate rejects it
+        delegate.reject = true;
+        delegate.deferred.get(0).run();
+        assertEquals(completed.get(), 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidConcurrency() {
+        AsyncExecutors.newVirtualThreadExecutor(0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class UserEvent {}
+
+    // runs the tasks on the submitting thread, unless it rejects them
+    private static class RejectingExecutor extends AbstractExecutorService {
+        volatile boolean reject;
+        volatile boolean defer;
+        final List<Runnable> deferred = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            if (reject) {
+                throw new RejectedExecutionException("rejected");
+            }
+            if (defer) {
+                deferred.add(command);
+                return;
+            }
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return false;
+        }
+    }
+
+    private class BlockingListener {
+        final CountDownLatch latch;
+        final AtomicInteger running = new AtomicInteger();
+        volatile int maxConcurrency;
+
+        BlockingListener(int count) {
+            latch = new CountDownLatch(count);
+        }
+
+        @Subscribe(async = true)
+        public void listen(UserEvent event) {
+            int current = running.incrementAndGet();
+            if (current > maxConcurrency) {
+                maxConcurrency = current;
+            }
+            // simulates blocking I/O
+            sleep(1);
+            running.decrementAndGet();
+            latch.countDown();
+        }
+    }
+}
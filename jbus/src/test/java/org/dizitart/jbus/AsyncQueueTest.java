@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class AsyncQueueTest {
+    private ExecutorService executor;
+    private JBus<Object> jBus;
+    private BlockingListener listener;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        jBus = new JBus<Object>(Object.class, executor);
+        listener = new BlockingListener();
+        jBus.register(listener);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        listener.gate.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testDropNewest() throws InterruptedException {
+        jBus.setAsyncQueueLimit(2, OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 5; i++) {
+            jBus.post(new UserEvent(i));
+        }
+        assertEquals(jBus.getAsyncQueueStatistics().getDroppedEvents(), 3);
+        assertEquals(jBus.getAsyncQueueStatistics().getPendingEvents(), 2);
+
+        awaitDelivery(2);
+        assertEquals(listener.received, ids(0, 1));
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        jBus.setAsyncQueueLimit(2, OverflowPolicy.DROP_OLDEST);
+        jBus.post(new UserEvent(0));
+        assertTrue(listener.started.await(5, TimeUnit.SECONDS));
+        // the delivery of event 0 has started, so event 1 is the oldest droppable
+        jBus.post(new UserEvent(1));
+        jBus.post(new UserEvent(2));
+        assertEquals(jBus.getAsyncQueueStatistics().getDroppedEvents(), 1);
+
+        awaitDelivery(2);
+        assertEquals(listener.received, ids(0, 2));
+    }
+
+    @Test
+    public void testDropOldestReleasesEvent() throws InterruptedException {
+        jBus.setAsyncQueueLimit(2, OverflowPolicy.DROP_OLDEST);
+        jBus.post(new UserEvent(0));
+        assertTrue(listener.started.await(5, TimeUnit.SECONDS));
+        WeakReference<UserEvent> dropped = postWeakly(1);
+        jBus.post(new UserEvent(2));
+        assertEquals(jBus.getAsyncQueueStatistics().getDroppedEvents(), 1);
+
+        // the delivery of event 1 is still queued in the executor, but not the event
+        long deadline = System.currentTimeMillis() + 10000;
+        while (dropped.get() != null && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(dropped.get());
+
+        awaitDelivery(2);
+        assertEquals(listener.received, ids(0, 2));
+    }
+
+    @Test
+    public void testFail() {
+        jBus.setAsyncQueueLimit(1, OverflowPolicy.FAIL);
+        jBus.post(new UserEvent(0));
+        try {
+            jBus.post(new UserEvent(1));
+            fail("queue is full");
+        } catch (JBusException e) {
+            assertEquals(jBus.getAsyncQueueStatistics().getRejectedEvents(), 1);
+        }
+    }
+
+    @Test
+    public void testCallerRuns() throws InterruptedException {
+        jBus.setAsyncQueueLimit(1, OverflowPolicy.CALLER_RUNS);
+        jBus.post(new UserEvent(0));
+        assertTrue(listener.started.await(5, TimeUnit.SECONDS));
+
+        CallerListener callerListener = new CallerListener();
+        jBus.register(callerListener);
+        jBus.post(1);
+        assertEquals(callerListener.thread, Thread.currentThread());
+        assertEquals(jBus.getAsyncQueueStatistics().getCallerRunsEvents(), 1);
+    }
+
+    @Test
+    public void testBlock() throws InterruptedException {
+        jBus.setAsyncQueueLimit(1, OverflowPolicy.BLOCK);
+        jBus.post(new UserEvent(0));
+        final CountDownLatch posted = new CountDownLatch(1);
+        Thread poster = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                jBus.post(new UserEvent(1));
+                posted.countDown();
+            }
+        });
+        poster.start();
+        assertTrue(!posted.await(100, TimeUnit.MILLISECONDS));
+
+        listener.gate.countDown();
+        assertTrue(posted.await(5, TimeUnit.SECONDS));
+        awaitDelivery(2);
+        assertTrue(jBus.getAsyncQueueStatistics().getBlockedNanos() > 0);
+        assertEquals(jBus.getAsyncQueueStatistics().getDroppedEvents(), 0);
+    }
+
+    @Test
+    public void testBudget() throws InterruptedException {
+        jBus.setAsyncQueueLimit(10, OverflowPolicy.DROP_NEWEST);
+        jBus.setAsyncQueueBudget(10, new EventWeigher<Object>() {
+            @Override
+            public long weigh(Object event) {
+                return 4;
+            }
+        });
+        for (int i = 0; i < 4; i++) {
+            jBus.post(new UserEvent(i));
+        }
+        assertEquals(jBus.getAsyncQueueStatistics().getPendingWeight(), 8);
+        assertEquals(jBus.getAsyncQueueStatistics().getDroppedEvents(), 2);
+
+        awaitDelivery(2);
+        assertEquals(jBus.getAsyncQueueStatistics().getPendingWeight(), 0);
+    }
+
+    @Test
+    public void testSyncPostsAreNotQueued() {
+        jBus.setAsyncQueueLimit(1, OverflowPolicy.FAIL);
+        jBus.post(new UserEvent(0));
+        SyncListener syncListener = new SyncListener();
+        jBus.register(syncListener);
+        jBus.post("not queued");
+        assertEquals(syncListener.counter, 1);
+    }
+
+    private void awaitDelivery(int count) throws InterruptedException {
+        listener.gate.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (jBus.getAsyncQueueStatistics().getPendingEvents() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(listener.received.size(), count);
+    }
+
+    private WeakReference<UserEvent> postWeakly(int id) {
+        UserEvent event = new UserEvent(id);
+        jBus.post(event);
+        return new WeakReference<UserEvent>(event);
+    }
+
+    private static List<Integer> ids(Integer... ids) {
+        List<Integer> list = new ArrayList<Integer>();
+        Collections.addAll(list, ids);
+        return list;
+    }
+
+    private static class UserEvent {
+        private final int id;
+
+        UserEvent(int id) {
+            this.id = id;
+        }
+    }
+
+    private static class BlockingListener {
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+
+        @Subscribe(async = true)
+        private void listen(UserEvent event) throws InterruptedException {
+            started.countDown();
+            gate.await();
+            received.add(event.id);
+        }
+    }
+
+    private static class CallerListener {
+        private Thread thread;
+
+        @Subscribe(async = true)
+        private void listen(Integer event) {
+            thread = Thread.currentThread();
+        }
+    }
+
+    private static class SyncListener {
+        private int counter;
+
+        @Subscribe
+        private void listen(String event) {
+            counter++;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class BatchSubscriberTest {
+    private ExecutorService executor;
+    private JBus<Object> jBus;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        jBus = new JBus<Object>(Object.class, executor);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testBatchSize() throws InterruptedException {
+        BatchingListener listener = new BatchingListener(2);
+        jBus.register(listener);
+        for (int i = 0; i < 7; i++) {
+            jBus.post(new UserEvent(i));
+        }
+
+        assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+        assertEquals(listener.batches, Arrays.asList(Arrays.asList(0, 1, 2), Arrays.asList(3, 4, 5)));
+    }
+
+    @Test
+    public void testFlush() throws InterruptedException {
+        BatchingListener listener = new BatchingListener(1);
+        jBus.register(listener);
+        jBus.post(new UserEvent(0));
+        jBus.post(new UserEvent(1));
+        jBus.flushBatches();
+
+        assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+        assertEquals(listener.batches, Collections.singletonList(Arrays.asList(0, 1)));
+    }
+
+    @Test
+    public void testLinger() throws InterruptedException {
+        LingeringListener listener = new LingeringListener();
+        jBus.register(listener);
+        long start = System.nanoTime();
+        jBus.post(new UserEvent(0));
+        jBus.post(new UserEvent(1));
+
+        assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+        assertEquals(listener.batches, Collections.singletonList(Arrays.asList(0, 1)));
+    }
+
+    @Test
+    public void testBatchListener() throws InterruptedException {
+        final List<List<UserEvent>> batches = Collections.synchronizedList(new ArrayList<List<UserEvent>>());
+        final CountDownLatch latch = new CountDownLatch(2);
+        jBus.registerBatch(new BatchListener<UserEvent>() {
+            @Override
+            public void accept(List<UserEvent> events) {
+                batches.add(events);
+                latch.countDown();
+            }
+        }, UserEvent.class, 2, 0);
+        for (int i = 0; i < 4; i++) {
+            jBus.post(new UserEvent(i));
+        }
+        jBus.post("not a user event");
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(batches.size(), 2);
+        assertEquals(batches.get(1).get(1).id, 3);
+    }
+
+    @Test
+    public void testRejectedFlush() throws InterruptedException {
+        BatchingListener listener = new BatchingListener(1);
+        jBus.register(listener);
+        jBus.post(new UserEvent(0));
+        jBus.post(new UserEvent(1));
+        executor.shutdown();
+
+        CloseReport report = jBus.close(1, TimeUnit.SECONDS);
+        assertTrue(report.isDrained());
+        assertEquals(report.getAbandonedDeliveries(), 0);
+        assertTrue(listener.batches.isEmpty());
+    }
+
+    @Test(expected = JBusException.class)
+    public void testInvalidBatchParameter() {
+        jBus.register(new InvalidBatchListener());
+    }
+
+    private static class UserEvent {
+        private final int id;
+
+        UserEvent(int id) {
+            this.id = id;
+        }
+    }
+
+    private static class BatchingListener {
+        private final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<List<Integer>>());
+        private final CountDownLatch latch;
+
+        BatchingListener(int expectedBatches) {
+            latch = new CountDownLatch(expectedBatches);
+        }
+
+        @Subscribe(batchSize = 3)
+        private void insert(List<UserEvent> events) {
+            List<Integer> ids = new ArrayList<Integer>();
+            for (UserEvent event : events) {
+                ids.add(event.id);
+            }
+            batches.add(ids);
+            latch.countDown();
+        }
+    }
+
+    private static class LingeringListener {
+        private final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<List<Integer>>());
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        @Subscribe(batchSize = 100, batchLingerMillis = 50)
+        private void insert(List<UserEvent> events) {
+            List<Integer> ids = new ArrayList<Integer>();
+            for (UserEvent event : events) {
+                ids.add(event.id);
+            }
+            batches.add(ids);
+            latch.countDown();
+        }
+    }
+
+    private static class InvalidBatchListener {
+        @Subscribe(batchSize = 2)
+        private void insert(UserEvent event) {
+        }
+    }
+}
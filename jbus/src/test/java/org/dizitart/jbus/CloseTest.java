@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class CloseTest {
+    private ExecutorService executor;
+    private JBus<Object> jBus;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        jBus = new JBus<Object>(Object.class, executor);
+    }
+
+    @Test
+    public void testAwaitQuiescence() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        SlowListener listener = new SlowListener(gate);
+        jBus.register(listener);
+        jBus.post(new UserEvent());
+        jBus.post(new UserEvent());
+
+        assertFalse(jBus.awaitQuiescence(50, TimeUnit.MILLISECONDS));
+        gate.countDown();
+        assertTrue(jBus.awaitQuiescence(5, TimeUnit.SECONDS));
+        assertEquals(listener.count.get(), 4);
+    }
+
+    @Test
+    public void testCloseDrainsPendingDeliveries() throws Exception {
+        CountDownLatch gate = new CountDownLatch(0);
+        SlowListener listener = new SlowListener(gate);
+        OrderedListener ordered = new OrderedListener();
+        BatchCollector batches = new BatchCollector();
+        jBus.register(listener);
+        jBus.register(ordered);
+        jBus.registerBatch(batches, UserEvent.class, 10, TimeUnit.HOURS.toMillis(1));
+        for (int i = 0; i < 5; i++) {
+            jBus.post(new UserEvent());
+        }
+
+        CloseReport report = jBus.close(5, TimeUnit.SECONDS);
+        assertTrue(report.isDrained());
+        assertEquals(report.getAbandonedDeliveries(), 0);
+        assertEquals(listener.count.get(), 10);
+        assertEquals(ordered.count.get(), 5);
+        assertEquals(batches.batches.size(), 1);
+        assertEquals(batches.batches.get(0).size(), 5);
+        assertTrue(executor.isShutdown());
+
+        jBus.post(new UserEvent());
+        assertEquals(listener.count.get(), 10);
+        assertEquals(jBus.close(1, TimeUnit.SECONDS).getRejectedPosts(), 1);
+    }
+
+    @Test
+    public void testCloseAbandonsAfterDeadline() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        jBus.register(new SlowListener(gate));
+        jBus.post(new UserEvent());
+
+        CloseReport report = jBus.close(50, TimeUnit.MILLISECONDS);
+        assertFalse(report.isDrained());
+        assertEquals(report.getAbandonedDeliveries(), 1);
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCloseWaitsForAdmittedChain() throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        final ChainListener listener = new ChainListener(entered, gate);
+        jBus.register(listener);
+        Thread poster = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                jBus.post(new UserEvent());
+            }
+        });
+        poster.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        final CloseReport[] report = new CloseReport[1];
+        Thread closer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    report[0] = jBus.close(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        closer.start();
+        Thread.sleep(50);
+        gate.countDown();
+        poster.join(5000);
+        closer.join(5000);
+
+        assertTrue(report[0].isDrained());
+        assertEquals(report[0].getRejectedPosts(), 0);
+        assertEquals(listener.count.get(), 2);
+    }
+
+    @Test
+    public void testCancelledBatchIsNotInFlight() throws Exception {
+        BatchCollector batches = new BatchCollector();
+        Subscription subscription = jBus.registerBatch(batches, UserEvent.class, 10, 0);
+        jBus.post(new UserEvent());
+        assertFalse(jBus.awaitQuiescence(50, TimeUnit.MILLISECONDS));
+
+        subscription.cancel();
+        jBus.post(new UserEvent());
+        assertTrue(jBus.awaitQuiescence(1, TimeUnit.SECONDS));
+
+        CloseReport report = jBus.close(1, TimeUnit.SECONDS);
+        assertTrue(report.isDrained());
+        assertEquals(report.getAbandonedDeliveries(), 0);
+        assertTrue(batches.batches.isEmpty());
+    }
+
+    private static class UserEvent {
+    }
+
+    private static class ChainListener {
+        private final CountDownLatch entered;
+        private final CountDownLatch gate;
+        private final AtomicInteger count = new AtomicInteger();
+
+        ChainListener(CountDownLatch entered, CountDownLatch gate) {
+            this.entered = entered;
+            this.gate = gate;
+        }
+
+        @Subscribe(priority = 1)
+        private void first(UserEvent event) throws InterruptedException {
+            entered.countDown();
+            gate.await();
+            count.incrementAndGet();
+        }
+
+        @Subscribe(async = true)
+        private void second(UserEvent event) {
+            count.incrementAndGet();
+        }
+    }
+
+    private static class SlowListener {
+        private final CountDownLatch gate;
+        private final AtomicInteger count = new AtomicInteger();
+
+        SlowListener(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Subscribe
+        private void sync(UserEvent event) {
+            count.incrementAndGet();
+        }
+
+        @Subscribe(async = true)
+        private void async(UserEvent event) throws InterruptedException {
+            gate.await();
+            count.incrementAndGet();
+        }
+    }
+
+    private static class OrderedListener {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Subscribe(async = true, ordered = true)
+        private void listen(UserEvent event) {
+            count.incrementAndGet();
+        }
+    }
+
+    private static class BatchCollector implements BatchListener<UserEvent> {
+        private final List<List<UserEvent>> batches = new CopyOnWriteArrayList<List<UserEvent>>();
+
+        @Override
+        public void accept(List<UserEvent> events) {
+            batches.add(events);
+        }
+    }
+}
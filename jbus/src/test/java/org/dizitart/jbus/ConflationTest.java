@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class ConflationTest {
+    private ExecutorService executor;
+    private JBus<Object> jBus;
+    private GateListener gateListener;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        jBus = new JBus<Object>(Object.class, executor);
+        gateListener = new GateListener();
+        jBus.register(gateListener);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        gateListener.gate.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testConflateByKey() throws InterruptedException {
+        jBus.setKeyExtractor(PriceEvent.class, new KeyExtractor<PriceEvent>() {
+            @Override
+            public Object getKey(PriceEvent event) {
+                return event.symbol;
+            }
+        });
+        ConflatingListener listener = new ConflatingListener(2);
+        jBus.register(listener);
+
+        closeGate();
+        jBus.post(new PriceEvent("A", 1));
+        jBus.post(new PriceEvent("B", 1));
+        jBus.post(new PriceEvent("A", 2));
+        jBus.post(new PriceEvent("B", 2));
+        jBus.post(new PriceEvent("A", 3));
+        gateListener.gate.countDown();
+
+        assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+        // the latest event of each key, in the order the keys were first queued
+        assertEquals(listener.received, Arrays.asList("A3", "B2"));
+    }
+
+    @Test
+    public void testConflateWithoutKeyExtractor() throws InterruptedException {
+        ConflatingListener listener = new ConflatingListener(1);
+        jBus.register(listener);
+
+        closeGate();
+        for (int i = 0; i < 10; i++) {
+            jBus.post(new PriceEvent("A", i));
+        }
+        gateListener.gate.countDown();
+
+        assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(listener.received, Collections.singletonList("A9"));
+    }
+
+    @Test
+    public void testThrottle() throws InterruptedException {
+        ThrottledListener listener = new ThrottledListener();
+        jBus.register(listener);
+
+        jBus.post(new PriceEvent("A", 1));
+        assertTrue(listener.first.await(5, TimeUnit.SECONDS));
+        long firstDelivery = System.nanoTime();
+        jBus.post(new PriceEvent("A", 2));
+        jBus.post(new PriceEvent("A", 3));
+
+        assertTrue(listener.second.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - firstDelivery >= TimeUnit.MILLISECONDS.toNanos(150));
+        assertEquals(listener.received, Arrays.asList("A1", "A3"));
+    }
+
+    @Test
+    public void testReplacedEventsLeaveAsyncQueue() throws InterruptedException {
+        jBus.setAsyncQueueLimit(100, OverflowPolicy.FAIL);
+        ConflatingListener listener = new ConflatingListener(1);
+        jBus.register(listener);
+
+        closeGate();
+        for (int i = 0; i < 10; i++) {
+            jBus.post(new PriceEvent("A", i));
+        }
+        // the gate event and the latest price event
+        assertEquals(jBus.getAsyncQueueStatistics().getPendingEvents(), 2);
+        gateListener.gate.countDown();
+
+        assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (jBus.getAsyncQueueStatistics().getPendingEvents() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(jBus.getAsyncQueueStatistics().getPendingEvents(), 0);
+    }
+
+    // occupies the only executor thread, so that events pile up in the mailbox
+    private void closeGate() throws InterruptedException {
+        jBus.post(new GateEvent());
+        assertTrue(gateListener.started.await(5, TimeUnit.SECONDS));
+    }
+
+    private static class PriceEvent {
+        private final String symbol;
+        private final int price;
+
+        PriceEvent(String symbol, int price) {
+            this.symbol = symbol;
+            this.price = price;
+        }
+
+        @Override
+        public String toString() {
+            return symbol + price;
+        }
+    }
+
+    private static class GateEvent {
+    }
+
+    private static class GateListener {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch gate = new CountDownLatch(1);
+
+        @Subscribe(async = true)
+        private void listen(GateEvent event) throws InterruptedException {
+            started.countDown();
+            gate.await();
+        }
+    }
+
+    private static class ConflatingListener {
+        private final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+        private final CountDownLatch latch;
+
+        ConflatingListener(int expected) {
+            latch = new CountDownLatch(expected);
+        }
+
+        @Subscribe(async = true, conflate = true)
+        private void listen(PriceEvent event) {
+            received.add(event.toString());
+            latch.countDown();
+        }
+    }
+
+    private static class ThrottledListener {
+        private final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+        private final CountDownLatch first = new CountDownLatch(1);
+        private final CountDownLatch second = new CountDownLatch(2);
+
+        @Subscribe(async = true, throttleMillis = 200)
+        private void listen(PriceEvent event) {
+            received.add(event.toString());
+            first.countDown();
+            second.countDown();
+        }
+    }
+}
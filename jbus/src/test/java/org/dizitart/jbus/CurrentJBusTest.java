@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class CurrentJBusTest {
+    private JBus<Object> jBus;
+
+    @Before
+    public void setUp() {
+        jBus = new JBus<Object>(Object.class);
+    }
+
+    @Test
+    public void testDeregisterCurrentListener() {
+        SelfRemovingListener listener = new SelfRemovingListener();
+        jBus.register(listener);
+        jBus.post(new UserEvent());
+        jBus.post(new UserEvent());
+
+        assertEquals(listener.counter, 1);
+        assertNull(CurrentJBus.INSTANCE.context().jBus());
+    }
+
+    @Test
+    public void testDeregisterAfterNestedPost() {
+        NestedListener nestedListener = new NestedListener();
+        OuterListener outerListener = new OuterListener();
+        jBus.register(nestedListener);
+        jBus.register(outerListener);
+        jBus.post(new UserEvent());
+        jBus.post(new UserEvent());
+
+        // the nested post does not lose the outer listener of the thread
+        assertEquals(outerListener.counter, 1);
+        assertEquals(nestedListener.counter, 1);
+        assertSame(nestedListener.listener, nestedListener);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testDeregisterOutsideSubscriber() {
+        JBus.deregister();
+    }
+
+    private class UserEvent {}
+    private class NestedEvent {}
+
+    private class SelfRemovingListener {
+        int counter;
+
+        @Subscribe
+        public void listen(UserEvent event) {
+            counter++;
+            JBus.deregister();
+        }
+    }
+
+    private class OuterListener {
+        int counter;
+
+        @Subscribe
+        public void listen(UserEvent event) {
+            counter++;
+            jBus.post(new NestedEvent());
+            JBus.deregister();
+        }
+    }
+
+    private class NestedListener {
+        int counter;
+        Object listener;
+
+        @Subscribe
+        public void listen(NestedEvent event) {
+            counter++;
+            listener = CurrentJBus.INSTANCE.context().listener();
+        }
+    }
+}
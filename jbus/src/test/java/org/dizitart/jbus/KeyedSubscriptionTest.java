@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class KeyedSubscriptionTest {
+    private JBus<Object> jBus;
+
+    @Before
+    public void setUp() {
+        jBus = new JBus<Object>(Object.class);
+        jBus.setKeyExtractor(AccountEvent.class, new KeyExtractor<AccountEvent>() {
+            @Override
+            public Object getKey(AccountEvent event) {
+                return event.account;
+            }
+        });
+    }
+
+    @Test
+    public void testOnlyMatchingKeyIsInvoked() {
+        AccountListener first = new AccountListener();
+        AccountListener second = new AccountListener();
+        AccountListener all = new AccountListener();
+        jBus.registerKeyed(first, AccountEvent.class, "A");
+        jBus.registerKeyed(second, AccountEvent.class, "B");
+        jBus.register(all);
+
+        jBus.post(new AccountEvent("A", 1));
+        jBus.post(new AccountEvent("B", 2));
+        jBus.post(new AccountEvent("C", 3));
+
+        assertEquals(first.received, Arrays.asList(1));
+        assertEquals(second.received, Arrays.asList(2));
+        assertEquals(all.received, Arrays.asList(1, 2, 3));
+    }
+
+    @Test
+    public void testListenerAndCancel() {
+        final List<Integer> received = new ArrayList<Integer>();
+        Subscription subscription = jBus.registerKeyed(new Listener<AccountEvent>() {
+            @Override
+            public void accept(AccountEvent event) {
+                received.add(event.amount);
+            }
+        }, AccountEvent.class, "A");
+
+        jBus.post(new AccountEvent("A", 1));
+        jBus.post(new AccountEvent("B", 2));
+        subscription.cancel();
+        jBus.post(new AccountEvent("A", 3));
+
+        assertEquals(received, Arrays.asList(1));
+    }
+
+    @Test
+    public void testPriorityAcrossKeyedAndUnkeyed() {
+        final List<String> order = new ArrayList<String>();
+        jBus.registerKeyed(new Object() {
+            @Subscribe(priority = 10)
+            private void listen(AccountEvent event) {
+                order.add("keyed");
+            }
+        }, AccountEvent.class, "A");
+        jBus.register(new Object() {
+            @Subscribe
+            private void listen(AccountEvent event) {
+                order.add("unkeyed");
+            }
+        });
+
+        jBus.post(new AccountEvent("A", 1));
+        assertEquals(order, Arrays.asList("keyed", "unkeyed"));
+    }
+
+    @Test
+    public void testStickyEventMatchesKey() {
+        jBus.postSticky(new AccountEvent("A", 1));
+        AccountListener matching = new AccountListener();
+        AccountListener other = new AccountListener();
+        jBus.registerKeyed(matching, AccountEvent.class, "A");
+        jBus.registerKeyed(other, AccountEvent.class, "B");
+
+        assertEquals(matching.received, Arrays.asList(1));
+        assertTrue(other.received.isEmpty());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullKey() {
+        jBus.registerKeyed(new AccountListener(), AccountEvent.class, null);
+    }
+
+    private static class AccountEvent {
+        private final String account;
+        private final int amount;
+
+        AccountEvent(String account, int amount) {
+            this.account = account;
+            this.amount = amount;
+        }
+    }
+
+    private static class AccountListener {
+        private final List<Integer> received = new ArrayList<Integer>();
+
+        @Subscribe
+        private void listen(AccountEvent event) {
+            received.add(event.amount);
+        }
+    }
+}
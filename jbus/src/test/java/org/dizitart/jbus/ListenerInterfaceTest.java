@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class ListenerInterfaceTest {
+    private JBus<Object> jBus;
+
+    @Before
+    public void setUp() {
+        jBus = new JBus<Object>(Object.class);
+    }
+
+    @Test
+    public void testListenerRegistration() {
+        final AtomicInteger counter = new AtomicInteger();
+        Listener<UserEvent> listener = new Listener<UserEvent>() {
+            @Override
+            public void accept(UserEvent event) {
+                counter.incrementAndGet();
+            }
+        };
+        Subscription subscription = jBus.register(listener, UserEvent.class);
+        jBus.post(new UserEvent());
+        jBus.post(new OtherEvent());
+
+        assertEquals(counter.get(), 1);
+
+        subscription.cancel();
+        jBus.post(new UserEvent());
+
+        assertEquals(counter.get(), 1);
+    }
+
+    @Test
+    public void testAsyncListenerRegistration() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Thread> thread = new AtomicReference<Thread>();
+        jBus.registerAsync(new Listener<UserEvent>() {
+            @Override
+            public void accept(UserEvent event) {
+                thread.set(Thread.currentThread());
+                latch.countDown();
+            }
+        }, UserEvent.class);
+        jBus.post(new UserEvent());
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertNotSame(thread.get(), Thread.currentThread());
+    }
+
+    @Test
+    public void testOtherSubscriberMethodsAreRegistered() {
+        AnnotatedListener listener = new AnnotatedListener();
+        jBus.register(listener, UserEvent.class);
+        jBus.post(new UserEvent());
+
+        assertEquals(listener.acceptCounter, 1);
+        assertEquals(listener.listenCounter, 1);
+    }
+
+    @Test
+    public void testAcceptAnnotationIsApplied() throws InterruptedException {
+        AsyncAcceptListener listener = new AsyncAcceptListener();
+        jBus.register(listener, UserEvent.class);
+        jBus.post(new UserEvent());
+
+        assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+        assertNotSame(listener.thread, Thread.currentThread());
+    }
+
+    @Test
+    public void testAcceptPriority() {
+        final List<String> order = new ArrayList<String>();
+        jBus.register(new Listener<UserEvent>() {
+            @Override
+            public void accept(UserEvent event) {
+                order.add("default");
+            }
+        }, UserEvent.class);
+        jBus.register(new PriorityAcceptListener(order), UserEvent.class);
+        jBus.post(new UserEvent());
+
+        assertEquals(order, Arrays.asList("priority", "default"));
+    }
+
+    @Test(expected = JBusException.class)
+    public void testMismatchedSubscriberMethodIsRejected() {
+        jBus.register(new MismatchedListener(), UserEvent.class);
+    }
+
+    @Test
+    public void testListenerError() {
+        final AtomicReference<ExceptionContext> context = new AtomicReference<ExceptionContext>();
+        jBus.register(new Listener<ExceptionEvent>() {
+            @Override
+            public void accept(ExceptionEvent event) {
+                context.set(event.getExceptionContext());
+            }
+        }, ExceptionEvent.class);
+        jBus.register(new Listener<UserEvent>() {
+            @Override
+            public void accept(UserEvent event) {
+                throw new IllegalStateException();
+            }
+        }, UserEvent.class);
+        jBus.post(new UserEvent());
+
+        assertEquals(context.get().getSubscribedMethod().getName(), "accept");
+    }
+
+    private class UserEvent {}
+    private class OtherEvent {}
+
+    private class AnnotatedListener implements Listener<UserEvent> {
+        int acceptCounter;
+        int listenCounter;
+
+        @Override
+        public void accept(UserEvent event) {
+            acceptCounter++;
+        }
+
+        @Subscribe
+        public void listen(UserEvent event) {
+            listenCounter++;
+        }
+    }
+
+    private class AsyncAcceptListener implements Listener<UserEvent> {
+        final CountDownLatch latch = new CountDownLatch(1);
+        volatile Thread thread;
+
+        @Override
+        @Subscribe(async = true)
+        public void accept(UserEvent event) {
+            thread = Thread.currentThread();
+            latch.countDown();
+        }
+    }
+
+    private class PriorityAcceptListener implements Listener<UserEvent> {
+        final List<String> order;
+
+        PriorityAcceptListener(List<String> order) {
+            this.order = order;
+        }
+
+        @Override
+        @Subscribe(priority = 10)
+        public void accept(UserEvent event) {
+            order.add("priority");
+        }
+    }
+
+    private class MismatchedListener implements Listener<UserEvent> {
+        @Override
+        public void accept(UserEvent event) {
+        }
+
+        @Subscribe
+        public void listen(OtherEvent event) {
+        }
+    }
+}
@@ -25,6 +25,8 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Anindya Chatterjee.
@@ -51,6 +53,43 @@ public class ListenerTest {
         assertEquals(listener.listen1Counter.intValue(), 1);
     }
 
+    @Test
+    public void testCancelSubscription() {
+        Listener listener = new Listener();
+        Listener otherListener = new Listener();
+        Subscription subscription = jBus.register(listener);
+        jBus.registerWeak(otherListener);
+        jBus.post(new Event());
+
+        assertEquals(listener.listen1Counter.intValue(), 1);
+        assertFalse(subscription.isCancelled());
+
+        subscription.cancel();
+        jBus.post(new Event());
+
+        assertTrue(subscription.isCancelled());
+        assertEquals(listener.listen1Counter.intValue(), 1);
+        assertEquals(otherListener.listen1Counter.intValue(), 2);
+
+        // cancelled listener can be registered again
+        Subscription newSubscription = jBus.register(listener);
+        jBus.post(new Event());
+
+        assertEquals(listener.listen1Counter.intValue(), 2);
+
+        // stale handle does not affect the new registration
+        subscription.cancel();
+        jBus.post(new Event());
+
+        assertEquals(listener.listen1Counter.intValue(), 3);
+
+        jBus.deregister(listener);
+        jBus.post(new Event());
+
+        assertTrue(newSubscription.isCancelled());
+        assertEquals(listener.listen1Counter.intValue(), 3);
+    }
+
     @Test(expected = NullPointerException.class)
     public void testNullPosting() {
         Listener listener = new Listener();
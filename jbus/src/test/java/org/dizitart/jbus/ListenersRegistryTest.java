@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class ListenersRegistryTest {
+    private ListenersRegistry<Object> registry;
+
+    @Before
+    public void setUp() {
+        registry = new ListenersRegistry<Object>(Object.class);
+    }
+
+    @Test
+    public void testResolvedSubscribersAreCached() {
+        registry.register(new BaseListener(), false, false, null);
+
+        ListenerMethod[] first = registry.getSubscribers(new UserEvent());
+        ListenerMethod[] second = registry.getSubscribers(new UserEvent());
+
+        assertEquals(first.length, 1);
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testRegistrationInvalidatesResolvedSubscribers() {
+        registry.register(new BaseListener(), false, false, null);
+        assertEquals(registry.getSubscribers(new UserEvent()).length, 1);
+        assertEquals(registry.getSubscribers(new OtherEvent()).length, 0);
+
+        UserListener userListener = new UserListener();
+        registry.register(userListener, false, false, null);
+        assertEquals(registry.getSubscribers(new UserEvent()).length, 2);
+        assertEquals(registry.getSubscribers(new BaseEvent()).length, 1);
+
+        registry.deregister(userListener);
+        assertEquals(registry.getSubscribers(new UserEvent()).length, 1);
+    }
+
+    @Test
+    public void testKeyedRegistrationKeepsResolvedSubscribers() {
+        registry.keyExtractors.put(KeyedEvent.class, new KeyExtractor<KeyedEvent>() {
+            @Override
+            public Object getKey(KeyedEvent event) {
+                return event.key;
+            }
+        });
+        registry.register(new KeyedListener(), false, false, null);
+        ListenerMethod[] unkeyed = registry.getSubscribers(new KeyedEvent("B"));
+
+        Subscription subscription = registry.register(new KeyedListener(), false, false, KeyedEvent.class, 0,
+                "A", null);
+        assertEquals(registry.getSubscribers(new KeyedEvent("A")).length, 2);
+        assertSame(registry.getSubscribers(new KeyedEvent("B")), unkeyed);
+
+        subscription.cancel();
+        assertEquals(registry.getSubscribers(new KeyedEvent("A")).length, 1);
+        assertSame(registry.getSubscribers(new KeyedEvent("B")), unkeyed);
+    }
+
+    @Test
+    public void testInterfaceSubscribersAreResolved() {
+        registry.register(new TaggedListener(), false, false, null);
+
+        assertEquals(registry.getSubscribers(new UserEvent()).length, 1);
+        assertEquals(registry.getSubscribers(new BaseEvent()).length, 0);
+    }
+
+    @Test
+    public void testManyListenersRegistration() {
+        List<UserListener> listeners = new ArrayList<UserListener>();
+        for (int i = 0; i < 20000; i++) {
+            UserListener listener = new UserListener();
+            listeners.add(listener);
+            registry.register(listener, i % 2 == 0, false, null);
+        }
+        assertEquals(registry.getSubscribers(new UserEvent()).length, 20000);
+
+        for (int i = 0; i < 10000; i++) {
+            registry.deregister(listeners.get(i));
+        }
+        assertEquals(registry.getSubscribers(new UserEvent()).length, 10000);
+    }
+
+    @Test(expected = JBusException.class)
+    public void testDuplicateWeakRegistration() {
+        UserListener listener = new UserListener();
+        registry.register(listener, true, false, null);
+        registry.register(listener, true, false, null);
+    }
+
+    @Test
+    public void testGarbageCollectedWeakListenerIsReclaimed() throws InterruptedException {
+        registry.register(new UserListener(), false, false, null);
+        Subscription subscription = registry.register(new UserListener(), true, false, null);
+        assertEquals(registry.getSubscribers(new UserEvent()).length, 2);
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!subscription.isCancelled() && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+            registry.reclaimWeakListeners(16);
+        }
+
+        assertTrue(subscription.isCancelled());
+        assertEquals(registry.getSubscribers(new UserEvent()).length, 1);
+    }
+
+    @Test
+    public void testReaperReclaimsWeakListener() throws InterruptedException {
+        registry.startReaper("test-reaper");
+        try {
+            Subscription subscription = registry.register(new UserListener(), true, false, null);
+
+            long deadline = System.currentTimeMillis() + 10000;
+            while (!subscription.isCancelled() && System.currentTimeMillis() < deadline) {
+                System.gc();
+                Thread.sleep(10);
+            }
+
+            assertTrue(subscription.isCancelled());
+            assertEquals(registry.getSubscribers(new UserEvent()).length, 0);
+        } finally {
+            registry.stopReaper();
+        }
+    }
+
+    private interface Tagged {}
+    private class BaseEvent {}
+    private class UserEvent extends BaseEvent implements Tagged {}
+    private class OtherEvent {}
+
+    private class KeyedEvent {
+        private final String key;
+
+        KeyedEvent(String key) {
+            this.key = key;
+        }
+    }
+
+    private class BaseListener {
+        @Subscribe
+        void listen(BaseEvent event) {
+        }
+    }
+
+    private class UserListener {
+        @Subscribe
+        void listen(UserEvent event) {
+        }
+    }
+
+    private class KeyedListener {
+        @Subscribe
+        void listen(KeyedEvent event) {
+        }
+    }
+
+    private class TaggedListener {
+        @Subscribe
+        void listen(Tagged event) {
+        }
+    }
+}
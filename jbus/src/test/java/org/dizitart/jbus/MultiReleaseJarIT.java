@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.dizitart.jbus;
+
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Runs against the packaged jar, as its multi-release classes are only loaded
+ * from a jar.
+ *
+ * @author Anindya Chatterjee.
+ */
+public class MultiReleaseJarIT {
+
+    @Test
+    public void testRunsAgainstJar() {
+        String location = Invokers.class.getProtectionDomain().getCodeSource().getLocation().toString();
+        assertTrue(location, location.endsWith(".jar"));
+    }
+
+    @Test
+    public void testInvokersOnJava9() throws NoSuchMethodException {
+        assumeTrue(javaVersion() >= 9);
+
+        assertNotNull(Invokers.create(Subscriber.class.getDeclaredMethod("listen", String.class)));
+        assertNotNull(Invokers.create(Subscriber.class.getDeclaredMethod("listenPrivately", String.class)));
+    }
+
+    @Test
+    public void testVirtualThreadsOnJava21() throws Exception {
+        assumeTrue(javaVersion() >= 21);
+        assertTrue(VirtualThreads.isSupported());
+
+        ExecutorService executorService = AsyncExecutors.newVirtualThreadExecutor();
+        try {
+            Future<Object> virtual = executorService.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    return Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+                }
+            });
+            assertEquals(virtual.get(5, TimeUnit.SECONDS), Boolean.TRUE);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private static int javaVersion() {
+        // 1.6 up to 1.8, then 9 and later
+        String version = System.getProperty("java.specification.version");
+        return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+    }
+
+    public static class Subscriber {
+        @Subscribe
+        public void listen(String event) {
+        }
+
+        @Subscribe
+        private void listenPrivately(String event) {
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class PartitionedDispatchTest {
+    private ExecutorService executor;
+    private JBus<Object> jBus;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        jBus = new JBus<Object>(Object.class, executor);
+        jBus.setKeyExtractor(AccountEvent.class, new KeyExtractor<AccountEvent>() {
+            @Override
+            public Object getKey(AccountEvent event) {
+                return event.account;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testOrderPerKey() throws InterruptedException {
+        OrderListener listener = new OrderListener();
+        jBus.register(listener);
+        for (int i = 0; i < 200; i++) {
+            for (int account = 0; account < 8; account++) {
+                jBus.post(new AccountEvent(account, i));
+            }
+        }
+
+        assertTrue(jBus.awaitQuiescence(5, TimeUnit.SECONDS));
+        assertFalse(listener.overlapped.get());
+        assertEquals(listener.received.size(), 8);
+        for (List<Integer> sequences : listener.received.values()) {
+            assertEquals(sequences.size(), 200);
+            for (int i = 0; i < 200; i++) {
+                assertEquals(sequences.get(i).intValue(), i);
+            }
+        }
+    }
+
+    @Test
+    public void testLanesRunInParallel() throws InterruptedException {
+        ParallelListener listener = new ParallelListener();
+        jBus.register(listener);
+        // accounts 0 and 1 hash to different lanes, the first delivery waits for
+        // the second one
+        jBus.post(new AccountEvent(0, 0));
+        jBus.post(new AccountEvent(1, 0));
+
+        assertTrue(listener.released.await(5, TimeUnit.SECONDS));
+        assertTrue(jBus.awaitQuiescence(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = JBusException.class)
+    public void testNegativePartitions() {
+        jBus.register(new Object() {
+            @Subscribe(async = true, partitions = -1)
+            private void listen(AccountEvent event) {
+            }
+        });
+    }
+
+    private static class AccountEvent {
+        private final int account;
+        private final int sequence;
+
+        AccountEvent(int account, int sequence) {
+            this.account = account;
+            this.sequence = sequence;
+        }
+    }
+
+    private static class OrderListener {
+        private final Map<Integer, List<Integer>> received = new ConcurrentHashMap<Integer, List<Integer>>();
+        private final Map<Integer, Boolean> active = new ConcurrentHashMap<Integer, Boolean>();
+        private final AtomicBoolean overlapped = new AtomicBoolean();
+
+        @Subscribe(async = true, partitions = 4)
+        private void listen(AccountEvent event) {
+            if (active.put(event.account, Boolean.TRUE) != null)
+                overlapped.set(true);
+            List<Integer> sequences = received.get(event.account);
+            if (sequences == null) {
+                sequences = new ArrayList<Integer>();
+                received.put(event.account, sequences);
+            }
+            sequences.add(event.sequence);
+            active.remove(event.account);
+        }
+    }
+
+    private static class ParallelListener {
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        @Subscribe(async = true, partitions = 2)
+        private void listen(AccountEvent event) throws InterruptedException {
+            if (event.account == 0)
+                released.await(5, TimeUnit.SECONDS);
+            else
+                released.countDown();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class PostAllTest {
+    private CountingExecutor executor;
+    private JBus<Object> jBus;
+
+    @Before
+    public void setUp() {
+        executor = new CountingExecutor();
+        jBus = new JBus<Object>(Object.class, executor);
+    }
+
+    @Test
+    public void testSyncOrderIsKept() {
+        SyncListener listener = new SyncListener();
+        jBus.register(listener);
+        jBus.postAll(Arrays.<Object>asList(new UserEvent(1), "a", new UserEvent(2), new UserEvent(3), "b"));
+
+        assertEquals(listener.received, Arrays.<Object>asList("1", "a", "2", "3", "b"));
+    }
+
+    @Test
+    public void testAsyncBatches() {
+        jBus.setAsyncChunkSize(16);
+        AsyncListener listener = new AsyncListener();
+        jBus.register(listener);
+        List<UserEvent> events = new ArrayList<UserEvent>();
+        for (int i = 0; i < 100; i++) {
+            events.add(new UserEvent(i));
+        }
+        jBus.postAll(events.iterator());
+
+        assertEquals(executor.tasks, 7);
+        assertEquals(listener.received.size(), 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(listener.received.get(i).intValue(), i);
+        }
+    }
+
+    @Test
+    public void testMixedSubscribers() {
+        SyncListener syncListener = new SyncListener();
+        AsyncListener asyncListener = new AsyncListener();
+        jBus.register(syncListener);
+        jBus.register(asyncListener);
+        jBus.postAll(Arrays.asList(new UserEvent(1), new UserEvent(2)));
+
+        assertEquals(executor.tasks, 1);
+        assertEquals(syncListener.received, Arrays.<Object>asList("1", "2"));
+        assertEquals(asyncListener.received, Arrays.asList(1, 2));
+    }
+
+    @Test
+    public void testHandlerChainPerEvent() {
+        jBus.register(new InterruptingListener());
+        InterruptingListener second = new InterruptingListener();
+        jBus.register(second);
+        jBus.postAll(Arrays.asList(new ChainEvent(), new ChainEvent()));
+
+        // every event has its own handler chain, the first listener interrupts each
+        assertEquals(second.counter, 0);
+    }
+
+    @Test
+    public void testNullEvent() {
+        SyncListener listener = new SyncListener();
+        jBus.register(listener);
+        try {
+            jBus.postAll(Arrays.<Object>asList("a", null, "b"));
+            fail("null event");
+        } catch (NullPointerException e) {
+            assertEquals(listener.received, Collections.<Object>singletonList("a"));
+        }
+    }
+
+    private static class UserEvent {
+        private final int id;
+
+        UserEvent(int id) {
+            this.id = id;
+        }
+    }
+
+    private static class ChainEvent implements HandlerChainAware {
+        private HandlerChain handlerChain;
+
+        @Override
+        public void setHandlerChain(HandlerChain handlerChain) {
+            this.handlerChain = handlerChain;
+        }
+
+        @Override
+        public HandlerChain getHandlerChain() {
+            return handlerChain;
+        }
+    }
+
+    private static class SyncListener {
+        private final List<Object> received = new ArrayList<Object>();
+
+        @Subscribe
+        private void listen(UserEvent event) {
+            received.add(String.valueOf(event.id));
+        }
+
+        @Subscribe
+        private void listen(String event) {
+            received.add(event);
+        }
+    }
+
+    private static class AsyncListener {
+        private final List<Integer> received = new ArrayList<Integer>();
+
+        @Subscribe(async = true)
+        private void listen(UserEvent event) {
+            received.add(event.id);
+        }
+    }
+
+    private static class InterruptingListener {
+        private int counter;
+
+        @Subscribe
+        private void listen(ChainEvent event) {
+            counter++;
+            event.getHandlerChain().interrupt();
+        }
+    }
+
+    private static class CountingExecutor extends AbstractExecutorService {
+        int tasks;
+        boolean shutdown;
+
+        @Override
+        public void execute(Runnable command) {
+            tasks++;
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
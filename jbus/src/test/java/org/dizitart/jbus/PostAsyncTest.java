@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class PostAsyncTest {
+    private ExecutorService executor;
+    private JBus<Object> jBus;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        jBus = new JBus<Object>(Object.class, executor);
+    }
+
+    @Test
+    public void testCompletesAfterAllSubscribers() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        SlowListener slow = new SlowListener(gate);
+        OrderedListener ordered = new OrderedListener();
+        jBus.register(slow);
+        jBus.register(ordered);
+
+        PostCompletion completion = jBus.postAsync(new UserEvent());
+        assertFalse(completion.isDone());
+        gate.countDown();
+        completion.get(5, TimeUnit.SECONDS);
+
+        assertTrue(completion.isDone());
+        assertEquals(slow.count.get(), 2);
+        assertEquals(ordered.count.get(), 1);
+        assertTrue(completion.getErrors().isEmpty());
+        assertFalse(completion.isDropped());
+    }
+
+    @Test
+    public void testErrorsAreAggregated() throws Exception {
+        jBus.register(new FailingListener());
+        PostCompletion completion = jBus.postAsync(new UserEvent());
+        try {
+            completion.get(5, TimeUnit.SECONDS);
+            fail("errors should fail the post");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof JBusException);
+        }
+        assertEquals(completion.getErrors().size(), 2);
+    }
+
+    @Test
+    public void testPostAndWait() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        SlowListener slow = new SlowListener(gate);
+        jBus.register(slow);
+
+        assertFalse(jBus.postAndWait(new UserEvent(), 50, TimeUnit.MILLISECONDS));
+        gate.countDown();
+        assertTrue(jBus.postAndWait(new UserEvent(), 5, TimeUnit.SECONDS));
+
+        jBus.register(new FailingListener());
+        try {
+            jBus.postAndWait(new UserEvent(), 5, TimeUnit.SECONDS);
+            fail("errors should fail the post");
+        } catch (JBusException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testNoSubscribers() {
+        PostCompletion completion = jBus.postAsync(new UserEvent());
+        assertTrue(completion.isDone());
+        final AtomicInteger callbacks = new AtomicInteger();
+        completion.onComplete(new Runnable() {
+            @Override
+            public void run() {
+                callbacks.incrementAndGet();
+            }
+        });
+        assertEquals(callbacks.get(), 1);
+    }
+
+    @Test
+    public void testDroppedByBoundedQueue() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        jBus.setAsyncQueueLimit(1, OverflowPolicy.DROP_NEWEST);
+        jBus.register(new SlowListener(gate));
+
+        PostCompletion first = jBus.postAsync(new UserEvent());
+        PostCompletion second = jBus.postAsync(new UserEvent());
+        assertTrue(second.isDone());
+        assertTrue(second.isDropped());
+
+        gate.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertFalse(first.isDropped());
+        assertEquals(jBus.getAsyncQueueStatistics().getPendingEvents(), 0);
+    }
+
+    private static class UserEvent {
+    }
+
+    private static class SlowListener {
+        private final CountDownLatch gate;
+        private final AtomicInteger count = new AtomicInteger();
+
+        SlowListener(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Subscribe
+        private void sync(UserEvent event) {
+            count.incrementAndGet();
+        }
+
+        @Subscribe(async = true)
+        private void async(UserEvent event) throws InterruptedException {
+            gate.await();
+            count.incrementAndGet();
+        }
+    }
+
+    private static class OrderedListener {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Subscribe(async = true, ordered = true)
+        private void listen(UserEvent event) {
+            count.incrementAndGet();
+        }
+    }
+
+    private static class FailingListener {
+        @Subscribe
+        private void sync(UserEvent event) {
+            throw new IllegalStateException("sync");
+        }
+
+        @Subscribe(async = true)
+        private void async(UserEvent event) {
+            throw new IllegalStateException("async");
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class ReflectionUtilTest {
+
+    @Test
+    public void testMetadataIsSharedAcrossInstances() {
+        List<ListenerMethod> first = ReflectionUtil.findSubscribeMethods(Object.class, new Listener(), false);
+        List<ListenerMethod> second = ReflectionUtil.findSubscribeMethods(Object.class, new Listener(), false);
+
+        assertEquals(first.size(), 1);
+        assertEquals(second.size(), 1);
+        assertNotSame(first.get(0), second.get(0));
+        assertSame(first.get(0).method, second.get(0).method);
+        assertFalse(first.get(0).async);
+    }
+
+    @Test
+    public void testMetadataIsKeyedByExecutionMode() {
+        List<ListenerMethod> sync = ReflectionUtil.findSubscribeMethods(Object.class, new Listener(), false);
+        List<ListenerMethod> async = ReflectionUtil.findSubscribeMethods(Object.class, new Listener(), true);
+
+        assertFalse(sync.get(0).async);
+        assertTrue(async.get(0).async);
+    }
+
+    @Test
+    public void testOverriddenMethodIsFoundOnce() {
+        List<ListenerMethod> listenerMethods = ReflectionUtil.findSubscribeMethods(Object.class,
+                new ChildListener(), false);
+
+        assertEquals(listenerMethods.size(), 1);
+        assertEquals(listenerMethods.get(0).method.getDeclaringClass(), ChildListener.class);
+    }
+
+    @Test
+    public void testMetadataDoesNotPinClassLoader() throws Exception {
+        WeakReference<ClassLoader> loader = scanInIsolatedLoader();
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (loader.get() != null && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(loader.get());
+    }
+
+    private static WeakReference<ClassLoader> scanInIsolatedLoader() throws Exception {
+        ClassLoader loader = new IsolatingClassLoader(IsolatedListener.class.getName());
+        Object listener = loader.loadClass(IsolatedListener.class.getName()).newInstance();
+        assertNotSame(listener.getClass(), IsolatedListener.class);
+
+        List<ListenerMethod> listenerMethods = ReflectionUtil.findSubscribeMethods(Object.class, listener, false);
+        assertEquals(listenerMethods.size(), 1);
+        return new WeakReference<ClassLoader>(loader);
+    }
+
+    private class UserEvent {}
+
+    public static class IsolatedListener {
+        @Subscribe
+        public void listen(String event) {
+        }
+    }
+
+    // defines its own copy of a single class, delegating any other class
+    private static class IsolatingClassLoader extends ClassLoader {
+        private final String isolatedName;
+
+        IsolatingClassLoader(String isolatedName) {
+            super(ReflectionUtilTest.class.getClassLoader());
+            this.isolatedName = isolatedName;
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(isolatedName)) {
+                return super.loadClass(name, resolve);
+            }
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded != null) {
+                return loaded;
+            }
+            try {
+                InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+                try {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[4096];
+                    for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                        bytes.write(buffer, 0, read);
+                    }
+                    return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+    }
+
+    private class Listener {
+        @Subscribe
+        void listen(UserEvent event) {
+        }
+    }
+
+    private class ChildListener extends Listener {
+        @Subscribe
+        @Override
+        void listen(UserEvent event) {
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class RingBufferExecutorTest {
+    private static final int PRODUCERS = 4;
+    private static final int TASKS_PER_PRODUCER = 10000;
+
+    @Test
+    public void testBusySpin() throws InterruptedException {
+        testWaitStrategy(RingBufferExecutor.WaitStrategy.BUSY_SPIN);
+    }
+
+    @Test
+    public void testYield() throws InterruptedException {
+        testWaitStrategy(RingBufferExecutor.WaitStrategy.YIELD);
+    }
+
+    @Test
+    public void testPark() throws InterruptedException {
+        testWaitStrategy(RingBufferExecutor.WaitStrategy.PARK);
+    }
+
+    @Test
+    public void testBlocking() throws InterruptedException {
+        testWaitStrategy(RingBufferExecutor.WaitStrategy.BLOCKING);
+    }
+
+    @Test
+    public void testAsyncSubscribers() throws InterruptedException {
+        RingBufferExecutor executor = new RingBufferExecutor(64, 2, RingBufferExecutor.WaitStrategy.PARK);
+        try {
+            JBus<Object> jBus = new JBus<Object>(Object.class, executor);
+            AsyncListener listener = new AsyncListener(1000);
+            jBus.register(listener);
+            for (int i = 0; i < 1000; i++) {
+                jBus.post(new UserEvent());
+            }
+            assertTrue(listener.latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testFullRingFromConsumerThread() throws InterruptedException {
+        final RingBufferExecutor executor = new RingBufferExecutor(2, 1, RingBufferExecutor.WaitStrategy.BLOCKING);
+        final CountDownLatch latch = new CountDownLatch(10);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                // more tasks than slots, from the only consumer
+                for (int i = 0; i < 10; i++) {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            latch.countDown();
+                        }
+                    });
+                }
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testRejectAfterShutdown() throws InterruptedException {
+        RingBufferExecutor executor = new RingBufferExecutor(8, 1, RingBufferExecutor.WaitStrategy.YIELD);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+
+    @Test
+    public void testShutdownRunsAcceptedTasks() throws InterruptedException {
+        for (int i = 0; i < 20; i++) {
+            final RingBufferExecutor executor = new RingBufferExecutor(1024, 1,
+                    RingBufferExecutor.WaitStrategy.BUSY_SPIN);
+            final AtomicInteger accepted = new AtomicInteger();
+            final AtomicInteger counter = new AtomicInteger();
+            final Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    counter.incrementAndGet();
+                }
+            };
+            Thread[] producers = new Thread[PRODUCERS];
+            for (int j = 0; j < PRODUCERS; j++) {
+                producers[j] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            for (;;) {
+                                executor.execute(task);
+                                accepted.incrementAndGet();
+                            }
+                        } catch (RejectedExecutionException e) {
+                            // shut down
+                        }
+                    }
+                });
+                producers[j].start();
+            }
+            Thread.sleep(5);
+            executor.shutdown();
+            for (Thread producer : producers) {
+                producer.join();
+            }
+
+            // every task accepted before the shutdown is run
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(counter.get(), accepted.get());
+        }
+    }
+
+    private void testWaitStrategy(RingBufferExecutor.WaitStrategy waitStrategy) throws InterruptedException {
+        final RingBufferExecutor executor = new RingBufferExecutor(256, 2, waitStrategy);
+        final AtomicInteger counter = new AtomicInteger();
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                counter.incrementAndGet();
+            }
+        };
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int i = 0; i < PRODUCERS; i++) {
+            producers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < TASKS_PER_PRODUCER; j++) {
+                        executor.execute(task);
+                    }
+                }
+            });
+            producers[i].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        // shutdown drains the ring before the consumers stop
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(counter.get(), PRODUCERS * TASKS_PER_PRODUCER);
+    }
+
+    private class UserEvent {}
+
+    private class AsyncListener {
+        final CountDownLatch latch;
+
+        AsyncListener(int count) {
+            latch = new CountDownLatch(count);
+        }
+
+        @Subscribe(async = true)
+        public void listen(UserEvent event) {
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class StickyEventTest {
+    private JBus<Object> jBus;
+
+    @Before
+    public void setUp() {
+        jBus = new JBus<Object>(Object.class);
+    }
+
+    @Test
+    public void testStickyEventDeliveredOnRegistration() {
+        Listener listener = new Listener();
+        jBus.register(listener);
+        UserEvent first = new UserEvent();
+        UserEvent second = new UserEvent();
+        jBus.postSticky(first);
+        jBus.postSticky(second);
+
+        assertEquals(listener.userEvents, 2);
+        assertSame(jBus.getSticky(UserEvent.class), second);
+
+        Listener lateListener = new Listener();
+        jBus.register(lateListener);
+
+        // only the latest sticky event is delivered, and only to the new listener
+        assertEquals(lateListener.userEvents, 1);
+        assertSame(lateListener.lastEvent, second);
+        assertEquals(listener.userEvents, 2);
+    }
+
+    @Test
+    public void testStickyEventOfSubType() {
+        jBus.postSticky(new UserEvent());
+        jBus.postSticky(new OtherEvent());
+
+        BaseListener listener = new BaseListener();
+        jBus.register(listener);
+
+        assertEquals(listener.baseEvents, 1);
+        assertNull(jBus.getSticky(BaseEvent.class));
+    }
+
+    @Test
+    public void testRemoveSticky() {
+        UserEvent event = new UserEvent();
+        jBus.postSticky(event);
+
+        assertSame(jBus.removeSticky(UserEvent.class), event);
+        assertNull(jBus.getSticky(UserEvent.class));
+
+        Listener listener = new Listener();
+        jBus.register(listener);
+        assertEquals(listener.userEvents, 0);
+
+        jBus.postSticky(new UserEvent());
+        jBus.clearStickyEvents();
+        assertNull(jBus.getSticky(UserEvent.class));
+    }
+
+    @Test
+    public void testStickyEventEviction() {
+        jBus.setMaxStickyEvents(1);
+        jBus.postSticky(new UserEvent());
+        OtherEvent otherEvent = new OtherEvent();
+        jBus.postSticky(otherEvent);
+
+        assertNull(jBus.getSticky(UserEvent.class));
+        assertSame(jBus.getSticky(OtherEvent.class), otherEvent);
+    }
+
+    @Test
+    public void testConcurrentStickyEventEviction() throws InterruptedException {
+        final StickyEvents stickyEvents = new StickyEvents();
+        stickyEvents.setMaxSize(1);
+        Thread[] writers = new Thread[3];
+        for (int i = 0; i < writers.length; i++) {
+            final int writer = i;
+            writers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 100000; j++) {
+                        stickyEvents.put(new UserEvent());
+                        if (writer == 0) {
+                            stickyEvents.clear();
+                        } else {
+                            stickyEvents.remove(UserEvent.class);
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        // the eviction order is still in line with the stored events, no stale
+        // entry evicts a fresh event
+        stickyEvents.setMaxSize(2);
+        stickyEvents.put(new OtherEvent());
+        UserEvent userEvent = new UserEvent();
+        stickyEvents.put(userEvent);
+        stickyEvents.put(new BaseEvent());
+        assertNull(stickyEvents.get(OtherEvent.class));
+        assertSame(stickyEvents.get(UserEvent.class), userEvent);
+        assertEquals(stickyEvents.values().size(), 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxStickyEvents() {
+        jBus.setMaxStickyEvents(0);
+    }
+
+    private class BaseEvent {}
+    private class UserEvent extends BaseEvent {}
+    private class OtherEvent {}
+
+    private class Listener {
+        int userEvents;
+        UserEvent lastEvent;
+
+        @Subscribe
+        public void listen(UserEvent event) {
+            userEvents++;
+            lastEvent = event;
+        }
+    }
+
+    private class BaseListener {
+        int baseEvents;
+
+        @Subscribe
+        public void listen(BaseEvent event) {
+            baseEvents++;
+        }
+    }
+}
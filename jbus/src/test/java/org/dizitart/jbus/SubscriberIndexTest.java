@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class SubscriberIndexTest {
+    private static int invokerCalls;
+
+    static {
+        JBus.addSubscriberIndex(new TestIndex());
+    }
+
+    private JBus jBus;
+
+    @Before
+    public void setUp() {
+        jBus = new JBus(Object.class);
+        invokerCalls = 0;
+    }
+
+    @Test
+    public void testIndexedSubscribers() {
+        IndexedListener listener = new IndexedListener();
+        jBus.register(listener);
+        jBus.post(new UserEvent());
+
+        assertEquals(invokerCalls, 1);
+        assertEquals(listener.publicListenCalled, 1);
+        assertEquals(listener.privateListenCalled, 1);
+
+        jBus.deregister(listener);
+        jBus.post(new UserEvent());
+
+        assertEquals(invokerCalls, 1);
+        assertEquals(listener.publicListenCalled, 1);
+        assertEquals(listener.privateListenCalled, 1);
+    }
+
+    @Test
+    public void testIndexedSubscriberError() {
+        ErrorListener errorListener = new ErrorListener();
+        jBus.register(new IndexedListener());
+        jBus.register(errorListener);
+        jBus.post(new FailingEvent());
+
+        assertTrue(errorListener.errorHandled);
+        assertNotNull(errorListener.context.getSubscribedMethod());
+        assertEquals(errorListener.context.getSubscribedMethod().getName(), "fail");
+    }
+
+    private static class TestIndex implements SubscriberIndex {
+        @Override
+        public IndexedSubscriber[] getSubscribers(Class<?> listenerClass) {
+            if (!listenerClass.equals(IndexedListener.class)) {
+                return null;
+            }
+            return new IndexedSubscriber[] {
+                    new IndexedSubscriber(IndexedListener.class, "publicListen", UserEvent.class, false,
+                            new SubscriberInvoker() {
+                                @Override
+                                public void invoke(Object listener, Object event) {
+                                    invokerCalls++;
+                                    ((IndexedListener) listener).publicListen((UserEvent) event);
+                                }
+                            }),
+                    new IndexedSubscriber(IndexedListener.class, "privateListen", UserEvent.class, false, null),
+                    new IndexedSubscriber(IndexedListener.class, "fail", FailingEvent.class, false,
+                            new SubscriberInvoker() {
+                                @Override
+                                public void invoke(Object listener, Object event) {
+                                    ((IndexedListener) listener).fail((FailingEvent) event);
+                                }
+                            })
+            };
+        }
+    }
+
+    private static class UserEvent {}
+    private static class FailingEvent {}
+
+    private static class IndexedListener {
+        int publicListenCalled;
+        int privateListenCalled;
+
+        @Subscribe
+        public void publicListen(UserEvent event) {
+            publicListenCalled++;
+        }
+
+        @Subscribe
+        private void privateListen(UserEvent event) {
+            privateListenCalled++;
+        }
+
+        @Subscribe
+        public void fail(FailingEvent event) {
+            throw new RuntimeException("generated error");
+        }
+    }
+
+    private static class ErrorListener {
+        boolean errorHandled;
+        ExceptionContext context;
+
+        @Subscribe
+        public void listen(ExceptionEvent exceptionEvent) {
+            errorHandled = true;
+            context = exceptionEvent.getExceptionContext();
+        }
+    }
+}
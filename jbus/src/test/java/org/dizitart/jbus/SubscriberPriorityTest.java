@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class SubscriberPriorityTest {
+    private JBus<Object> jBus;
+    private List<String> invocations;
+
+    @Before
+    public void setUp() {
+        jBus = new JBus<Object>(Object.class);
+        invocations = new ArrayList<String>();
+    }
+
+    @Test
+    public void testPriorityOrder() {
+        jBus.register(new LowPriorityListener());
+        jBus.register(new DefaultPriorityListener("first"));
+        jBus.register(new HighPriorityListener());
+        jBus.register(new DefaultPriorityListener("second"));
+        jBus.post(new UserEvent());
+
+        // same priority keeps the registration order
+        assertEquals(invocations, Arrays.asList("high", "first", "second", "low"));
+    }
+
+    @Test
+    public void testHighPriorityInterrupts() {
+        jBus.register(new DefaultPriorityListener("processor"));
+        jBus.register(new ValidatingListener());
+
+        ValidatedEvent event = new ValidatedEvent();
+        event.valid = false;
+        jBus.post(event);
+        assertEquals(invocations, Arrays.asList("validator"));
+
+        invocations.clear();
+        jBus.post(new ValidatedEvent());
+        assertEquals(invocations, Arrays.asList("validator", "processor"));
+    }
+
+    @Test
+    public void testListenerPriority() {
+        jBus.register(new DefaultPriorityListener("default"));
+        jBus.register(new Listener<UserEvent>() {
+            @Override
+            public void accept(UserEvent event) {
+                invocations.add("listener");
+            }
+        }, UserEvent.class, 10);
+        jBus.post(new UserEvent());
+
+        assertEquals(invocations, Arrays.asList("listener", "default"));
+    }
+
+    @Test
+    public void testInheritedSubscribersAreSorted() {
+        jBus.register(new DefaultPriorityListener("user"));
+        jBus.register(new BaseEventListener());
+        jBus.post(new ValidatedEvent());
+
+        assertEquals(invocations, Arrays.asList("base", "user"));
+    }
+
+    private static class UserEvent {
+    }
+
+    private static class ValidatedEvent extends UserEvent implements HandlerChainAware {
+        private HandlerChain handlerChain;
+        private boolean valid = true;
+
+        @Override
+        public void setHandlerChain(HandlerChain handlerChain) {
+            this.handlerChain = handlerChain;
+        }
+
+        @Override
+        public HandlerChain getHandlerChain() {
+            return handlerChain;
+        }
+    }
+
+    private class DefaultPriorityListener {
+        private final String name;
+
+        DefaultPriorityListener(String name) {
+            this.name = name;
+        }
+
+        @Subscribe
+        private void listen(UserEvent event) {
+            invocations.add(name);
+        }
+    }
+
+    private class HighPriorityListener {
+        @Subscribe(priority = 10)
+        private void listen(UserEvent event) {
+            invocations.add("high");
+        }
+    }
+
+    private class LowPriorityListener {
+        @Subscribe(priority = -10)
+        private void listen(UserEvent event) {
+            invocations.add("low");
+        }
+    }
+
+    private class ValidatingListener {
+        @Subscribe(priority = 100)
+        private void validate(ValidatedEvent event) {
+            invocations.add("validator");
+            if (!event.valid)
+                event.getHandlerChain().interrupt();
+        }
+    }
+
+    private class BaseEventListener {
+        @Subscribe(priority = 1)
+        private void listen(Object event) {
+            invocations.add("base");
+        }
+    }
+}
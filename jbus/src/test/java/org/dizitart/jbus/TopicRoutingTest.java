@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2016 JBus author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.jbus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class TopicRoutingTest {
+    private JBus<Object> jBus;
+
+    @Before
+    public void setUp() {
+        jBus = new JBus<Object>(Object.class);
+    }
+
+    @Test
+    public void testWildcards() {
+        TopicListener exact = new TopicListener();
+        TopicListener one = new TopicListener();
+        TopicListener any = new TopicListener();
+        TopicListener all = new TopicListener();
+        jBus.registerTopic("orders.eu.created", exact);
+        jBus.registerTopic("orders.*.created", one);
+        jBus.registerTopic("orders.#", any);
+        jBus.registerTopic("#", all);
+
+        jBus.publish("orders.eu.created", new OrderEvent(1));
+        jBus.publish("orders.us.created", new OrderEvent(2));
+        jBus.publish("orders.eu", new OrderEvent(3));
+        jBus.publish("orders", new OrderEvent(4));
+        jBus.publish("payments.eu.created", new OrderEvent(5));
+
+        assertEquals(exact.received, Arrays.asList(1));
+        assertEquals(one.received, Arrays.asList(1, 2));
+        assertEquals(any.received, Arrays.asList(1, 2, 3, 4));
+        assertEquals(all.received, Arrays.asList(1, 2, 3, 4, 5));
+    }
+
+    @Test
+    public void testTopicsAndPostsAreSeparate() {
+        TopicListener topic = new TopicListener();
+        TopicListener plain = new TopicListener();
+        jBus.registerTopic("orders.#", topic);
+        jBus.register(plain);
+
+        jBus.post(new OrderEvent(1));
+        jBus.publish("orders.eu", new OrderEvent(2));
+
+        assertEquals(topic.received, Arrays.asList(2));
+        assertEquals(plain.received, Arrays.asList(1));
+    }
+
+    @Test
+    public void testEventTypeAndCancel() {
+        TopicListener orders = new TopicListener();
+        Subscription subscription = jBus.registerTopic("orders.*", orders);
+
+        jBus.publish("orders.eu", "not an order");
+        jBus.publish("orders.eu", new OrderEvent(1));
+        subscription.cancel();
+        jBus.publish("orders.eu", new OrderEvent(2));
+
+        assertEquals(orders.received, Collections.singletonList(1));
+    }
+
+    @Test
+    public void testRegistrationInvalidatesResolvedTopics() {
+        TopicListener first = new TopicListener();
+        TopicListener second = new TopicListener();
+        jBus.registerTopic("orders.*", first);
+        jBus.publish("orders.eu", new OrderEvent(1));
+        jBus.registerTopic("orders.eu", second);
+        jBus.publish("orders.eu", new OrderEvent(2));
+
+        assertEquals(first.received, Arrays.asList(1, 2));
+        assertEquals(second.received, Arrays.asList(2));
+    }
+
+    @Test
+    public void testPriority() {
+        final List<String> order = new ArrayList<String>();
+        jBus.registerTopic("orders.eu", new Object() {
+            @Subscribe
+            private void listen(OrderEvent event) {
+                order.add("exact");
+            }
+        });
+        jBus.registerTopic("orders.#", new Object() {
+            @Subscribe(priority = 10)
+            private void listen(OrderEvent event) {
+                order.add("any");
+            }
+        });
+
+        jBus.publish("orders.eu", new OrderEvent(1));
+        assertEquals(order, Arrays.asList("any", "exact"));
+    }
+
+    @Test
+    public void testInvalidPatterns() {
+        for (String pattern : Arrays.asList("orders.#.eu", "orders..eu", "orders.eu*", "")) {
+            try {
+                jBus.registerTopic(pattern, new TopicListener());
+                throw new AssertionError(pattern + " should be rejected");
+            } catch (JBusException e) {
+                assertTrue(e.getMessage().contains(pattern));
+            }
+        }
+    }
+
+    private static class OrderEvent {
+        private final int id;
+
+        OrderEvent(int id) {
+            this.id = id;
+        }
+    }
+
+    private static class TopicListener {
+        private final List<Integer> received = new ArrayList<Integer>();
+
+        @Subscribe
+        private void listen(OrderEvent event) {
+            received.add(event.id);
+        }
+    }
+}